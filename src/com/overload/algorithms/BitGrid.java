@@ -0,0 +1,264 @@
+package com.overload.algorithms;
+
+import com.overload.algorithms.floodfill.Floodfill;
+import com.overload.algorithms.pathfinding.Pathfinding;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * A precomputed bit-packed collision grid, one bit per cell where a set bit is blocked.<br>
+ * Rows are packed into longs, cell (x, y) is bit <tt>x &amp; 63</tt> of word <tt>y * stride + (x &gt;&gt; 6)</tt>.
+ * The padding bits past the width of a row are always set, and locations outside of the bounds are blocked.<br>
+ * Implements both the pathfinding and flood fill collision flags, which detect it and test cells
+ * directly instead of through the flags interface. The parent location is ignored.
+ * @author Odell
+ */
+public class BitGrid implements Pathfinding.Flags, Floodfill.Flags {
+
+	protected final int width, height;
+	/**
+	 * the number of words per row.
+	 */
+	protected final int stride;
+	protected final long[] words;
+	/**
+	 * the transposed copy, lazily created and kept in sync by {@link #set(int, int, boolean)}.
+	 */
+	private volatile BitGrid transposed = null;
+
+	/**
+	 * Creates an open grid with the given bounds.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 */
+	public BitGrid(final int width, final int height) {
+		this(width, height, true);
+	}
+
+	/**
+	 * Creates a grid with the given bounds, whose words are only allocated if requested,
+	 * for subclasses which store them elsewhere and override every accessor.
+	 */
+	BitGrid(final int width, final int height, final boolean allocate) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		this.width = width;
+		this.height = height;
+		this.stride = (width + 63) >>> 6;
+		if ((long) stride * (long) height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bounds are too large");
+		this.words = allocate ? new long[stride * height] : null;
+		final long padding = (width & 63) == 0 ? 0L : -1L << (width & 63);
+		if (allocate && padding != 0L) {
+			for (int y = 0; y < height; y++)
+				words[y * stride + stride - 1] = padding;
+		}
+	}
+
+	/**
+	 * Creates a grid by testing every location of the given pathfinding flags once, with no parent.
+	 * @param flags the flags to sample.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @return the new grid.
+	 */
+	public static BitGrid ofPathfinding(final Pathfinding.Flags flags, final int width, final int height) {
+		final BitGrid grid = new BitGrid(width, height);
+		final Node loc = new Node(0, 0);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (flags.blocked(loc.set(x, y), null))
+					grid.set(x, y, true);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Creates a grid by testing every location of the given flood fill flags once.
+	 * @param flags the flags to sample.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @return the new grid.
+	 */
+	public static BitGrid ofFloodfill(final Floodfill.Flags flags, final int width, final int height) {
+		final BitGrid grid = new BitGrid(width, height);
+		final Node loc = new Node(0, 0);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (flags.blocked(loc.set(x, y)))
+					grid.set(x, y, true);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Creates a copy of this grid, whose cells can be changed independently.
+	 * @return the new grid.
+	 */
+	public BitGrid copy() {
+		final BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (blocked(x, y))
+					grid.set(x, y, true);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @return the width of this grid.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of this grid.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the number of words per row.
+	 */
+	public int getStride() {
+		return stride;
+	}
+
+	/**
+	 * Determines whether the location lies within the bounds of this grid.
+	 */
+	public boolean inBounds(final int x, final int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Determines whether the cell is blocked, cells outside of the bounds are blocked.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @return whether the cell is blocked or not.
+	 */
+	public boolean blocked(final int x, final int y) {
+		if (!inBounds(x, y))
+			return true;
+		return (words[y * stride + (x >>> 6)] & (1L << x)) != 0L;
+	}
+
+	/**
+	 * Sets whether the cell is blocked.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @param blocked whether the cell is blocked or not.
+	 * @throws IndexOutOfBoundsException if the cell is outside of the bounds.
+	 */
+	public void set(final int x, final int y, final boolean blocked) {
+		if (!inBounds(x, y))
+			throw new IndexOutOfBoundsException("(" + x + "," + y + ") is out of bounds");
+		setBit(x, y, blocked);
+		final BitGrid t = transposed;
+		if (t != null)
+			t.setBit(y, x, blocked);
+	}
+
+	private void setBit(final int x, final int y, final boolean blocked) {
+		if (blocked) {
+			words[y * stride + (x >>> 6)] |= 1L << x;
+		} else {
+			words[y * stride + (x >>> 6)] &= ~(1L << x);
+		}
+	}
+
+	/**
+	 * Returns a word of a row, bit i is the cell (index * 64 + i, y).<br>
+	 * Rows outside of the bounds are entirely blocked.
+	 * @param y the row.
+	 * @param index the word index within the row, in [0, stride).
+	 * @return the word, a set bit is blocked.
+	 */
+	public long getWord(final int y, final int index) {
+		if (y < 0 || y >= height)
+			return -1L;
+		return words[y * stride + index];
+	}
+
+	/**
+	 * Replaces a word of a row, the padding bits past the width of the row stay set.
+	 * @param y the row.
+	 * @param index the word index within the row, in [0, stride).
+	 * @param word the new word, a set bit is blocked.
+	 */
+	public void setWord(final int y, final int index, long word) {
+		if (y < 0 || y >= height || index < 0 || index >= stride)
+			throw new IndexOutOfBoundsException("word " + index + " of row " + y + " is out of bounds");
+		if (index == stride - 1 && (width & 63) != 0)
+			word |= -1L << (width & 63);
+		final int i = y * stride + index;
+		final BitGrid t = transposed;
+		if (t != null) {
+			long changed = words[i] ^ word;
+			while (changed != 0L) {
+				final int bit = Long.numberOfTrailingZeros(changed);
+				t.setBit(y, (index << 6) + bit, (word & (1L << bit)) != 0L);
+				changed &= changed - 1;
+			}
+		}
+		words[i] = word;
+	}
+
+	/**
+	 * Returns 64 consecutive cells of a row, bit i is the cell (x + i, y).<br>
+	 * Cells outside of the bounds are set, x may be negative.
+	 * @param x the X position of the first cell.
+	 * @param y the row.
+	 * @return the cells, a set bit is blocked.
+	 */
+	public long getBits(final int x, final int y) {
+		if (y < 0 || y >= height || x >= width)
+			return -1L;
+		final int index = x >> 6, offset = x & 63;
+		final long lo = word(y, index);
+		if (offset == 0)
+			return lo;
+		return (lo >>> offset) | (word(y, index + 1) << (64 - offset));
+	}
+
+	private long word(final int y, final int index) {
+		return index < 0 || index >= stride ? -1L : words[y * stride + index];
+	}
+
+	/**
+	 * Returns the transposed grid, where the cell (x, y) of this grid is the cell (y, x).<br>
+	 * It's created on the first call, after which changes to either grid are applied to both,
+	 * so columns of this grid can be scanned as rows of the transposed grid.
+	 * @return the transposed grid.
+	 */
+	public synchronized BitGrid transposed() {
+		if (transposed == null) {
+			final BitGrid t = new BitGrid(height, width);
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (blocked(x, y))
+						t.setBit(y, x, true);
+				}
+			}
+			t.transposed = this;
+			transposed = t;
+		}
+		return transposed;
+	}
+
+	@Override
+	public boolean blocked(final Locatable loc, final Locatable parent) {
+		return blocked(loc.getX(), loc.getY());
+	}
+
+	@Override
+	public boolean blocked(final Locatable loc) {
+		return blocked(loc.getX(), loc.getY());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,207 @@
+package com.overload.algorithms;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Grid map input and output.<br>
+ * Maps can be imported from and exported to the text format of the grid pathfinding benchmarks by Sturtevant,
+ * a header of <tt>type octile</tt>, <tt>height</tt> and <tt>width</tt> lines followed by <tt>map</tt>
+ * and one line of terrain per row, where <tt>.</tt>, <tt>G</tt> and <tt>S</tt> are passable
+ * while <tt>@</tt>, <tt>O</tt>, <tt>T</tt> and <tt>W</tt> are blocked.<br>
+ * Grids can also be written in a compact binary format, the words of the {@link BitGrid} as they are,
+ * which is memory-mapped back rather than read, so even huge maps open instantly.
+ * A mapped grid is read-only and can be shared between pathfinding threads.
+ * @author Odell
+ */
+public final class GridMaps {
+
+	private static final int MAGIC = 0x47524944; // "GRID"
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+
+	private GridMaps() {
+	}
+
+	/**
+	 * Imports a map in the benchmark text format.
+	 * @param file the map file.
+	 * @return the collision grid of the map.
+	 * @throws IOException if the file couldn't be read or isn't a valid map.
+	 */
+	public static BitGrid importMap(final File file) throws IOException {
+		final Reader in = new FileReader(file);
+		try {
+			return importMap(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Imports a map in the benchmark text format, the reader isn't closed.
+	 * @param reader the map text.
+	 * @return the collision grid of the map.
+	 * @throws IOException if the map couldn't be read or isn't valid.
+	 */
+	public static BitGrid importMap(final Reader reader) throws IOException {
+		final BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+		int width = -1, height = -1;
+		String line;
+		while (true) {
+			line = in.readLine();
+			if (line == null)
+				throw new IOException("missing map section");
+			line = line.trim();
+			if (line.equals("map"))
+				break;
+			final String[] parts = line.split("\\s+");
+			if (parts.length != 2)
+				continue;
+			try {
+				if (parts[0].equals("height"))
+					height = Integer.parseInt(parts[1]);
+				else if (parts[0].equals("width"))
+					width = Integer.parseInt(parts[1]);
+			} catch (final NumberFormatException e) {
+				throw new IOException("invalid map " + parts[0] + ": " + parts[1]);
+			}
+		}
+		if (width <= 0 || height <= 0)
+			throw new IOException("invalid map bounds");
+		final BitGrid grid = new BitGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			line = in.readLine();
+			if (line == null || line.length() < width)
+				throw new IOException("truncated map row " + y);
+			for (int i = 0, stride = grid.getStride(); i < stride; i++) {
+				long word = 0L;
+				for (int x = i << 6, end = Math.min(width, x + 64); x < end; x++) {
+					if (blocked(line.charAt(x)))
+						word |= 1L << x;
+				}
+				grid.setWord(y, i, word);
+			}
+		}
+		return grid;
+	}
+
+	private static boolean blocked(final char terrain) throws IOException {
+		switch (terrain) {
+		case '.':
+		case 'G':
+		case 'S':
+			return false;
+		case '@':
+		case 'O':
+		case 'T':
+		case 'W':
+			return true;
+		default:
+			throw new IOException("unknown map terrain '" + terrain + "'");
+		}
+	}
+
+	/**
+	 * Exports a grid in the benchmark text format, open cells are written as <tt>.</tt> and blocked cells as <tt>@</tt>.
+	 * @param grid the grid to export.
+	 * @param file the file to write.
+	 * @throws IOException if the file couldn't be written.
+	 */
+	public static void exportMap(final BitGrid grid, final File file) throws IOException {
+		final BufferedWriter out = new BufferedWriter(new FileWriter(file), 1 << 16);
+		try {
+			final int width = grid.getWidth(), height = grid.getHeight();
+			out.write("type octile\nheight " + height + "\nwidth " + width + "\nmap\n");
+			final char[] row = new char[width];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++)
+					row[x] = grid.blocked(x, y) ? '@' : '.';
+				out.write(row);
+				out.write('\n');
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes a grid in the binary format, which can be mapped back with {@link #map(File)}.
+	 * @param grid the grid to write.
+	 * @param file the file to write.
+	 * @throws IOException if the file couldn't be written.
+	 */
+	public static void write(final BitGrid grid, final File file) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			final int height = grid.getHeight();
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(grid.getWidth());
+			out.writeInt(height);
+			for (int y = 0; y < height; y++) {
+				for (int i = 0, stride = grid.getStride(); i < stride; i++)
+					out.writeLong(grid.getWord(y, i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Memory-maps a grid previously written with {@link #write(BitGrid, File)}.<br>
+	 * Cells are read straight from the mapping, only the pages which are touched are loaded.
+	 * @param file the grid file.
+	 * @return the read-only grid, changing a cell throws an {@link UnsupportedOperationException}.
+	 * @throws IOException if the file couldn't be read or isn't a grid file.
+	 */
+	public static BitGrid map(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("grid file is too large to map");
+			final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.remaining() < HEADER || buf.getInt() != MAGIC)
+				throw new IOException("not a grid file");
+			if (buf.getInt() != VERSION)
+				throw new IOException("unsupported grid version");
+			final int width = buf.getInt(), height = buf.getInt();
+			if (width <= 0 || height <= 0)
+				throw new IOException("invalid grid bounds");
+			final long stride = ((long) width + 63L) >>> 6;
+			if (buf.remaining() != stride * height * 8L)
+				throw new IOException("truncated grid file");
+			return new MappedBitGrid(width, height, buf.slice().asLongBuffer());
+		} finally {
+			raf.close(); // the mapping stays valid after the channel is closed
+		}
+	}
+
+	/**
+	 * Reads a grid previously written with {@link #write(BitGrid, File)} into memory, where it can be changed.
+	 * @param file the grid file.
+	 * @return the grid.
+	 * @throws IOException if the file couldn't be read or isn't a grid file.
+	 */
+	public static BitGrid read(final File file) throws IOException {
+		final BitGrid mapped = map(file), grid = new BitGrid(mapped.getWidth(), mapped.getHeight());
+		for (int y = 0, height = grid.getHeight(), stride = grid.getStride(); y < height; y++) {
+			for (int i = 0; i < stride; i++)
+				grid.setWord(y, i, mapped.getWord(y, i));
+		}
+		return grid;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.overload.algorithms;
+
+import java.nio.LongBuffer;
+
+/**
+ * A read-only bit-packed collision grid whose words are read from a buffer, usually a file mapping,
+ * rather than copied into memory.<br>
+ * Absolute reads never change the buffer, so a single instance can be shared between threads.
+ * @see GridMaps#map(java.io.File)
+ * @author Odell
+ */
+class MappedBitGrid extends BitGrid {
+
+	private final LongBuffer buffer;
+	private volatile BitGrid transposed = null;
+
+	MappedBitGrid(final int width, final int height, final LongBuffer buffer) {
+		super(width, height, false);
+		this.buffer = buffer;
+	}
+
+	@Override
+	public boolean blocked(final int x, final int y) {
+		if (!inBounds(x, y))
+			return true;
+		return (buffer.get(y * stride + (x >>> 6)) & (1L << x)) != 0L;
+	}
+
+	/**
+	 * Unsupported, the grid is read-only.
+	 */
+	@Override
+	public void set(final int x, final int y, final boolean blocked) {
+		throw new UnsupportedOperationException("mapped grid is read-only");
+	}
+
+	@Override
+	public long getWord(final int y, final int index) {
+		if (y < 0 || y >= height)
+			return -1L;
+		return buffer.get(y * stride + index);
+	}
+
+	/**
+	 * Unsupported, the grid is read-only.
+	 */
+	@Override
+	public void setWord(final int y, final int index, final long word) {
+		throw new UnsupportedOperationException("mapped grid is read-only");
+	}
+
+	@Override
+	public long getBits(final int x, final int y) {
+		if (y < 0 || y >= height || x >= width)
+			return -1L;
+		final int index = x >> 6, offset = x & 63;
+		final long lo = word(y, index);
+		if (offset == 0)
+			return lo;
+		return (lo >>> offset) | (word(y, index + 1) << (64 - offset));
+	}
+
+	private long word(final int y, final int index) {
+		return index < 0 || index >= stride ? -1L : buffer.get(y * stride + index);
+	}
+
+	/**
+	 * Returns the transposed grid, which is copied into memory on the first call.<br>
+	 * The copy isn't linked to this grid, which never changes.
+	 * @return the transposed grid.
+	 */
+	@Override
+	public synchronized BitGrid transposed() {
+		if (transposed == null) {
+			final BitGrid t = new BitGrid(height, width);
+			for (int y = 0; y < height; y++) {
+				for (int i = 0; i < stride; i++) {
+					long word = buffer.get(y * stride + i);
+					if (i == stride - 1 && (width & 63) != 0)
+						word &= ~(-1L << (width & 63)); // drop the padding
+					while (word != 0L) {
+						t.set(y, (i << 6) + Long.numberOfTrailingZeros(word), true);
+						word &= word - 1;
+					}
+				}
+			}
+			transposed = t;
+		}
+		return transposed;
+	}
+
+}
\ No newline at end of file
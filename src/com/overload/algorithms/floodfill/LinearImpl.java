@@ -2,6 +2,7 @@ package com.overload.algorithms.floodfill;
 
 import java.util.LinkedList;
 
+import com.overload.algorithms.BitGrid;
 import com.overload.algorithms.floodfill.Floodfill.FillResult;
 import com.overload.algorithms.floodfill.Floodfill.Flags;
 import com.overload.loc.Locatable;
@@ -14,6 +15,7 @@ import com.overload.loc.Node;
 class LinearImpl implements AlgorithmDefinition {
 	
 	private Flags flags;
+	private BitGrid grid;
 	private boolean eight;
 	
 	@Override
@@ -24,6 +26,7 @@ class LinearImpl implements AlgorithmDefinition {
 	@Override
 	public void setFlags(Flags flags) {
 		this.flags = flags;
+		this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
 	}
 
 	@Override
@@ -34,7 +37,7 @@ class LinearImpl implements AlgorithmDefinition {
 			// search west
 			final int startX = curr.getX();
 			Node active = curr.clone();
-			while (!flags.blocked(active.shift(-1, 0)));
+			while (!blocked(active.shift(-1, 0)));
 			
 			// start flooding and searching north and south
 			boolean north = true, south = true;
@@ -42,15 +45,15 @@ class LinearImpl implements AlgorithmDefinition {
 				// set
 				fr.locationFound(active.clone());
 				
-				if (flags.blocked(active.shift(0, -1))) { // validate above row
+				if (blocked(active.shift(0, -1))) { // validate above row
 					if (eight) {
-						if (!flags.blocked(active.shift(-1, 0))) { // goto left
+						if (!blocked(active.shift(-1, 0))) { // goto left
 							if (north) {
 								q.offer(active.clone());
 							}
 						}
 						active.shift(2, 0); // goto right
-						if (!(north = flags.blocked(active))) {
+						if (!(north = blocked(active))) {
 							q.offer(active.clone());
 						}
 						active.shift(-1, 0); // goto middle
@@ -63,15 +66,15 @@ class LinearImpl implements AlgorithmDefinition {
                         north = false;
                     }
 				}
-				if (flags.blocked(active.shift(0, 2))) { // validate below row
+				if (blocked(active.shift(0, 2))) { // validate below row
 					if (eight) {
-						if (!flags.blocked(active.shift(-1, 0))) { // goto left
+						if (!blocked(active.shift(-1, 0))) { // goto left
 							if (south) {
 								q.offer(active.clone());
 							}
 						}
 						active.shift(2, 0); // goto right
-						if (!(south = flags.blocked(active))) {
+						if (!(south = blocked(active))) {
 							q.offer(active.clone());
 						}
 						active.shift(-1, 0); // goto middle
@@ -86,19 +89,19 @@ class LinearImpl implements AlgorithmDefinition {
 				}
 				active.shift(0, -1);
 			}
-			for (; !flags.blocked(active); active.shift(1, 0)) { // contents are copied from while loop
+			for (; !blocked(active); active.shift(1, 0)) { // contents are copied from while loop
 				// set
 				fr.locationFound(active.clone());
 				
-				if (flags.blocked(active.shift(0, -1))) { // validate above row
+				if (blocked(active.shift(0, -1))) { // validate above row
 					if (eight) {
-						if (!flags.blocked(active.shift(-1, 0))) { // goto left
+						if (!blocked(active.shift(-1, 0))) { // goto left
 							if (north) {
 								q.offer(active.clone());
 							}
 						}
 						active.shift(2, 0); // goto right
-						if (!(north = flags.blocked(active))) {
+						if (!(north = blocked(active))) {
 							q.offer(active.clone());
 						}
 						active.shift(-1, 0); // goto middle
@@ -111,15 +114,15 @@ class LinearImpl implements AlgorithmDefinition {
                         north = false;
                     }
 				}
-				if (flags.blocked(active.shift(0, 2))) { // validate below row
+				if (blocked(active.shift(0, 2))) { // validate below row
 					if (eight) {
-						if (!flags.blocked(active.shift(-1, 0))) { // goto left
+						if (!blocked(active.shift(-1, 0))) { // goto left
 							if (south) {
 								q.offer(active.clone());
 							}
 						}
 						active.shift(2, 0); // goto right
-						if (!(south = flags.blocked(active))) {
+						if (!(south = blocked(active))) {
 							q.offer(active.clone());
 						}
 						active.shift(-1, 0); // goto middle
@@ -137,4 +140,13 @@ class LinearImpl implements AlgorithmDefinition {
 		} while ((curr = q.poll()) != null);
 	}
 	
-}
+	/**
+	 * Tests a location, directly if the flags are a bit grid.
+	 */
+	private boolean blocked(final Locatable loc) {
+		if (grid != null)
+			return grid.blocked(loc.getX(), loc.getY());
+		return flags.blocked(loc);
+	}
+	
+}
\ No newline at end of file
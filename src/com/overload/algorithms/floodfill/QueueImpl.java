@@ -1,7 +1,9 @@
 package com.overload.algorithms.floodfill;
 
+import java.util.Arrays;
 import java.util.LinkedList;
 
+import com.overload.algorithms.BitGrid;
 import com.overload.algorithms.floodfill.Floodfill.FillResult;
 import com.overload.algorithms.floodfill.Floodfill.Flags;
 import com.overload.loc.Locatable;
@@ -15,6 +17,11 @@ class QueueImpl implements AlgorithmDefinition {
 	
 	private Flags flags;
 	private boolean eight;
+	/**
+	 * ring buffer of packed cell indices used when filling a bit grid, reused across calls.
+	 */
+	private int[] queue = new int[64];
+	private int head = 0, count = 0;
 
 	@Override
 	public void setEight(boolean eight) {
@@ -30,6 +37,10 @@ class QueueImpl implements AlgorithmDefinition {
 	public void fill(final Locatable start, final FillResult fr) {
 		if (flags == null)
 			throw new IllegalStateException("collision flags are null");
+		if (flags instanceof BitGrid) {
+			fill((BitGrid) flags, start, fr);
+			return;
+		}
 		final LinkedList<Node> q = new LinkedList<Node>();
 		Node curr = new Node(start);
 		do {
@@ -49,4 +60,53 @@ class QueueImpl implements AlgorithmDefinition {
 		} while ((curr = q.poll()) != null);
 	}
 	
-}
+	/**
+	 * Fills directly on the bit grid, queueing cell indices instead of nodes.
+	 */
+	private void fill(final BitGrid grid, final Locatable start, final FillResult fr) {
+		final int width = grid.getWidth();
+		if (!grid.inBounds(start.getX(), start.getY()))
+			return;
+		head = count = 0;
+		offer(start.getY() * width + start.getX());
+		while (count > 0) {
+			final int cell = queue[head];
+			head = (head + 1) & (queue.length - 1);
+			count--;
+			final int x = cell % width, y = cell / width;
+			if (grid.blocked(x, y))
+				continue;
+			fr.locationFound(new Node(x, y));
+			if (!grid.blocked(x, y - 1))
+				offer(cell - width);
+			if (!grid.blocked(x + 1, y))
+				offer(cell + 1);
+			if (!grid.blocked(x, y + 1))
+				offer(cell + width);
+			if (!grid.blocked(x - 1, y))
+				offer(cell - 1);
+			if (eight) {
+				if (!grid.blocked(x + 1, y - 1))
+					offer(cell - width + 1);
+				if (!grid.blocked(x + 1, y + 1))
+					offer(cell + width + 1);
+				if (!grid.blocked(x - 1, y + 1))
+					offer(cell + width - 1);
+				if (!grid.blocked(x - 1, y - 1))
+					offer(cell - width - 1);
+			}
+		}
+	}
+	
+	private void offer(final int cell) {
+		if (count == queue.length) { // unwrap into a buffer twice the size
+			final int[] grown = Arrays.copyOf(queue, count << 1);
+			System.arraycopy(queue, 0, grown, count, head);
+			System.arraycopy(grown, head, grown, 0, count);
+			queue = grown;
+			head = 0;
+		}
+		queue[(head + count++) & (queue.length - 1)] = cell;
+	}
+	
+}
\ No newline at end of file
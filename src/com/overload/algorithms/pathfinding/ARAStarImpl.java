@@ -0,0 +1,203 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.PathSearch.Status;
+import com.overload.loc.Locatable;
+import com.overload.util.NanoTimer;
+
+/**
+ * Anytime Repairing A* (ARA*), as described by Likhachev, Gordon and Thrun in 2003, on a bounded grid.<br>
+ * A first path is found quickly with a heavily weighted heuristic, starting at the weight of the settings,
+ * then the weight is lowered step by step down to 1.0 and each search reuses the previous one,
+ * only cells whose cost improved are expanded again.<br>
+ * Used through a {@link PathSearch} the best path so far and its suboptimality bound are available after every slice,
+ * a plain search runs until the path is optimal.
+ * @see GridAStarImpl
+ * @author Odell
+ */
+class ARAStarImpl extends GridDefinition implements ResumableDefinition {
+
+	/**
+	 * the deadline is checked once every this many plus one expansions.
+	 */
+	private static final int DEADLINE_MASK = 31;
+	/**
+	 * how much the weight is lowered after every improved path.
+	 */
+	private static final double DECREMENT = 0.5D;
+
+	/**
+	 * the iteration a cell was last closed in, and last added to the inconsistent list in.
+	 */
+	private int[] closedIn, inconsistentIn;
+	private int iteration = 0;
+	/**
+	 * closed cells whose cost improved during the current iteration, reopened by the next one.
+	 */
+	private int[] inconsistent = new int[64];
+	private int inconsistentCount = 0;
+
+	private double epsilon, bound;
+	private int goal = -1;
+	/**
+	 * the expanded cell closest to the destination, the end of the partial path.
+	 */
+	private int best = -1;
+	private float bestH;
+	private List<Locatable> solution = null;
+	private Status status = Status.NO_PATH;
+
+	@Override
+	protected void allocate(final int cells) {
+		super.allocate(cells);
+		closedIn = new int[cells];
+		inconsistentIn = new int[cells];
+		iteration = 0;
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		open(source, goal);
+		return resume(Integer.MAX_VALUE, null) == Status.FOUND ? goal : -1;
+	}
+
+	@Override
+	public void begin(final Locatable start, final Locatable end) {
+		if (open != null)
+			open.clear(); // the previous search may not have ended
+		solution = null;
+		bound = Double.POSITIVE_INFINITY;
+		if (!setup(start, end)) {
+			best = -1;
+			status = Status.NO_PATH;
+			return;
+		}
+		open(start.getY() * width + start.getX(), end.getY() * width + end.getX());
+	}
+
+	@Override
+	public Status resume(int maxExpansions, final NanoTimer deadline) {
+		while (status == Status.IN_PROGRESS) {
+			if (maxExpansions-- <= 0 || (deadline != null && (expanded & DEADLINE_MASK) == 0 && !deadline.isActive()))
+				return status;
+			if (!open.isEmpty() && (!visited(goal) || g[goal] > open.peekKey())) {
+				expand(open.poll());
+				continue;
+			}
+			// the current iteration ended, its path is within epsilon of the optimal cost
+			if (!visited(goal)) {
+				status = Status.NO_PATH;
+			} else {
+				solution = resolve(goal);
+				bound = epsilon;
+				if (epsilon <= 1.0D) {
+					status = Status.FOUND;
+					open.clear();
+				} else {
+					next();
+				}
+			}
+		}
+		return status;
+	}
+
+	@Override
+	public List<Locatable> getPath() {
+		if (solution != null)
+			return solution;
+		return best >= 0 ? resolve(best) : null;
+	}
+
+	@Override
+	public double getBound() {
+		return bound;
+	}
+
+	private void open(final int source, final int goal) {
+		this.goal = goal;
+		epsilon = weight;
+		bound = Double.POSITIVE_INFINITY;
+		solution = null;
+		best = source;
+		bestH = distance(source % width, source / width);
+		status = Status.IN_PROGRESS;
+		advance();
+		// opened directly rather than relaxed, the open list holds plain keys which ignore the tie-breaking
+		if (stats != null)
+			stats.reached(false, open.size() + 1);
+		g[source] = 0.0F;
+		parent[source] = -1;
+		stamp[source] = generation;
+		open.offer(source, key(source));
+	}
+
+	/**
+	 * Lowers the weight and reopens the inconsistent cells, every open cell is ordered by its new key.
+	 */
+	private void next() {
+		epsilon = Math.max(1.0D, epsilon - DECREMENT);
+		final int[] cells = Arrays.copyOf(inconsistent, open.size() + inconsistentCount);
+		int count = inconsistentCount;
+		for (int c; (c = open.poll()) >= 0; )
+			cells[count++] = c;
+		advance();
+		for (int i = 0; i < count; i++)
+			open.offer(cells[i], key(cells[i]));
+	}
+
+	/**
+	 * Starts a new iteration, which empties the closed and inconsistent lists in O(1).
+	 */
+	private void advance() {
+		inconsistentCount = 0;
+		if (++iteration == Integer.MAX_VALUE) {
+			Arrays.fill(closedIn, 0);
+			Arrays.fill(inconsistentIn, 0);
+			iteration = 1;
+		}
+	}
+
+	private void expand(final int curr) {
+		final int dirs = eight ? 8 : 4;
+		expanded++;
+		closedIn[curr] = iteration;
+		final int cx = curr % width, cy = curr / width;
+		final float h = distance(cx, cy);
+		if (h < bestH) {
+			best = curr;
+			bestH = h;
+		}
+		final float cg = g[curr];
+		for (int d = 0; d < dirs; d++) {
+			final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+			if (!inBounds(nx, ny))
+				continue;
+			final int n = ny * width + nx;
+			if (blocked(nx, ny, cx, cy))
+				continue;
+			final float ng = cg + step(nx, ny, cx, cy);
+			if (visited(n) && ng >= g[n])
+				continue;
+			if (stats != null)
+				stats.reached(visited(n), closedIn[n] != iteration && !open.contains(n) ? open.size() + 1 : open.size());
+			g[n] = ng;
+			parent[n] = curr;
+			stamp[n] = generation;
+			if (closedIn[n] != iteration) {
+				open.offer(n, key(n));
+			} else if (inconsistentIn[n] != iteration) {
+				inconsistentIn[n] = iteration;
+				if (inconsistentCount == inconsistent.length)
+					inconsistent = Arrays.copyOf(inconsistent, inconsistentCount << 1);
+				inconsistent[inconsistentCount++] = n;
+			}
+		}
+	}
+
+	private double key(final int cell) {
+		return g[cell] + epsilon * distance(cell % width, cell / width);
+	}
+
+}
\ No newline at end of file
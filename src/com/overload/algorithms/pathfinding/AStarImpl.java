@@ -1,18 +1,21 @@
 package com.overload.algorithms.pathfinding;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
 
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.CostFlags;
 import com.overload.algorithms.pathfinding.Pathfinding.Flags;
 import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
-import com.overload.impl.DoubleComparator;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.algorithms.pathfinding.PathSearch.Status;
 import com.overload.loc.Locatable;
 import com.overload.loc.Node;
+import com.overload.util.NanoTimer;
 
 /**
  * A* pathfinding algorithm first described by </br>
@@ -20,27 +23,51 @@ import com.overload.loc.Node;
  * Based upon Dijkstra's pathfinding algorithm, with added heuristics.
  * @author Odell
  */
-class AStarImpl implements AlgorithmDefinition {
+class AStarImpl implements ResumableDefinition {
 	
-	private final PriorityQueue<ANode> open;
+	/**
+	 * the deadline is checked once every this many plus one expansions.
+	 */
+	private static final int DEADLINE_MASK = 31;
+	
+	private final IndexedHeap open;
 	private final HashSet<ANode> closed;
 	private final HashMap<ANode, ANode> parentMap;
+	/**
+	 * every node discovered in the current search, indexed by its heap handle.
+	 */
+	private final ArrayList<ANode> nodes;
+	/**
+	 * maps a location to the instance discovered at it.
+	 */
+	private final HashMap<ANode, ANode> instances;
 	private ANode curr = null;
+	/**
+	 * the expanded node closest to the destination, the end of the partial path.
+	 */
+	private ANode best = null;
+	private Status status = Status.NO_PATH;
 	private Node dest = null;
 	
 	private Flags flags;
+	private BitGrid grid;
+	private CostFlags costs;
 	private Heuristic heur;
+	private TieBreaking tie;
 	private boolean eight;
-	private double diagonal = 1.0D;
+	private double diagonal = 1.0D, weight = 1.0D;
+	private int expanded = 0;
+	/**
+	 * the statistics to count into, or null if disabled.
+	 */
+	private SearchStats stats = null;
 	
 	AStarImpl() {
-		open = new PriorityQueue<ANode>(10, new DoubleComparator<ANode>() {
-			public double compareD(ANode n1, ANode n2) {
-				return n1.getF() - n2.getF();
-			}
-		});
+		open = new IndexedHeap();
 		closed = new HashSet<ANode>();
 		parentMap = new HashMap<ANode, ANode>();
+		nodes = new ArrayList<ANode>();
+		instances = new HashMap<ANode, ANode>();
 	}
 	
 	@Override
@@ -51,6 +78,8 @@ class AStarImpl implements AlgorithmDefinition {
 	@Override
 	public void setFlags(Flags flags) {
 		this.flags = flags;
+		this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
+		this.costs = flags instanceof CostFlags ? (CostFlags) flags : null;
 	}
 
 	@Override
@@ -62,63 +91,165 @@ class AStarImpl implements AlgorithmDefinition {
 	public void setDiagonal(double diagonal) {
 		this.diagonal = diagonal;
 	}
+
+	@Override
+	public void setWeight(double weight) {
+		if (weight < 1.0D)
+			throw new IllegalArgumentException("weight must be at least 1");
+		this.weight = weight;
+	}
+	
+	@Override
+	public void setTieBreaking(TieBreaking tie) {
+		this.tie = tie;
+	}
+	
+	@Override
+	public void setBounds(int width, int height) {}
 	
 	@Override
 	public List<Locatable> findPath(final Locatable start, final Locatable end) {
+		try {
+			begin(start, end);
+			return resume(Integer.MAX_VALUE, null) == Status.FOUND ? getPath() : null;
+		} finally {
+			reset();
+		}
+	}
+	
+	@Override
+	public void begin(final Locatable start, final Locatable end) {
 		if (heur == null)
 			this.heur = Heuristic.MANHATTAN; // recommended
-		try {
-			dest = new Node(end);
-			if (flags == null || !flags.blocked(dest, null)) { // ensure the destination isn't blocked already
-				curr = new ANode(start);
-				do {
-					if (curr.equals(end))
-						return resolve(curr);
-					closed.add(curr);
-					for (final ANode neighbor : curr.getNeighbors(flags, eight)) {
-						if (closed.contains(neighbor))
-							continue;
-						if (!open.contains(neighbor)) {
-							neighbor.setParent(curr);
-							open.offer(neighbor);
-						} else if ((curr.getG() + curr.getMoveCost(neighbor)) < neighbor.getG()) { // G score of node with current node as it's parent
-							final ANode instanceNode = retrieveInstance(open, neighbor);
-							if (instanceNode != null)
-								instanceNode.setParent(curr);
-						}
-					}
-				} while ((curr = open.poll()) != null);
+		reset();
+		expanded = 0;
+		dest = new Node(end);
+		if (blocked(dest, null)) { // ensure the destination isn't blocked already
+			status = Status.NO_PATH;
+			return;
+		}
+		best = register(new ANode(start));
+		push(best);
+		status = Status.IN_PROGRESS;
+	}
+	
+	@Override
+	public Status resume(int maxExpansions, final NanoTimer deadline) {
+		while (status == Status.IN_PROGRESS) {
+			if (maxExpansions-- <= 0 || (deadline != null && (expanded & DEADLINE_MASK) == 0 && !deadline.isActive()))
+				break;
+			if ((curr = poll()) == null) {
+				status = Status.NO_PATH;
+			} else if (curr.equals(dest)) {
+				status = Status.FOUND;
+			} else {
+				expand(curr);
 			}
-			return null;
-		} finally {
-			open.clear();
-			closed.clear();
-			parentMap.clear();
-			curr = null;
-			dest = null;
 		}
+		return status;
+	}
+	
+	@Override
+	public List<Locatable> getPath() {
+		return resolve(status == Status.FOUND ? curr : best);
+	}
+	
+	@Override
+	public double getBound() {
+		return status == Status.FOUND ? weight : Double.POSITIVE_INFINITY;
+	}
+	
+	private void expand(final ANode curr) {
+		closed.add(curr);
+		expanded++;
+		if (curr.getH() < best.getH())
+			best = curr;
+		for (final ANode neighbor : curr.getNeighbors(flags, eight)) {
+			if (closed.contains(neighbor))
+				continue;
+			final ANode instanceNode = instances.get(neighbor);
+			if (instanceNode == null) {
+				neighbor.setParent(curr);
+				push(register(neighbor));
+				if (stats != null)
+					stats.reached(false, open.size());
+			} else if ((curr.getG() + curr.getMoveCost(instanceNode)) < instanceNode.getG()) { // G score of node with current node as it's parent
+				instanceNode.setParent(curr);
+				push(instanceNode);
+				if (stats != null)
+					stats.reached(true, open.size());
+			}
+		}
+	}
+	
+	/**
+	 * Discards the state of the current search.
+	 */
+	private void reset() {
+		open.clear();
+		closed.clear();
+		parentMap.clear();
+		nodes.clear();
+		instances.clear();
+		curr = null;
+		best = null;
+		dest = null;
+		status = Status.NO_PATH;
+	}
+	
+	@Override
+	public int getExpanded() {
+		return expanded;
+	}
+	
+	@Override
+	public void setStatistics(final SearchStats stats) {
+		this.stats = stats;
 	}
 	
 	private List<Locatable> resolve(ANode target) {
 		if (target == null)
 			return null;
-		final LinkedList<Locatable> path = new LinkedList<Locatable>();
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
 		do {
-			path.addFirst(target);
+			path.add(target);
 		} while ((target = target.getParent()) != null);
-		return new ArrayList<Locatable>(path);
+		Collections.reverse(path);
+		return path;
 	}
 	
-	private ANode retrieveInstance(final PriorityQueue<ANode> pq, final ANode node) {
-		if (node == null)
-			return null;
-		final Iterator<ANode> nI = pq.iterator();
-		while (nI.hasNext()) {
-			final ANode n = nI.next();
-			if (node.equals(n))
-				return n;
-		}
-		return null;
+	private boolean blocked(final Locatable loc, final Locatable parent) {
+		if (stats != null)
+			stats.blocked++;
+		if (grid != null)
+			return grid.blocked(loc.getX(), loc.getY());
+		return flags != null && flags.blocked(loc, parent);
+	}
+	
+	/**
+	 * Assigns the next heap handle to a newly discovered node.
+	 * @return the given node.
+	 */
+	private ANode register(final ANode node) {
+		node.handle = nodes.size();
+		nodes.add(node);
+		instances.put(node, node);
+		return node;
+	}
+	
+	/**
+	 * Inserts a node into the open list, or updates its key if it's already open.
+	 */
+	private void push(final ANode node) {
+		if (tie != null)
+			open.offerPacked(node.handle, tie.key(node.getF(), (float) node.getG(), node));
+		else
+			open.offer(node.handle, node.getF());
+	}
+	
+	private ANode poll() {
+		final int handle = open.poll();
+		return handle >= 0 ? nodes.get(handle) : null;
 	}
 	
 	/**
@@ -139,6 +270,10 @@ class AStarImpl implements AlgorithmDefinition {
 		 * As the algorithm runs the F value of a node tells us how expensive we think it will be to reach our goal by way of that node.
 		 */
 		private java.lang.Double f;
+		/**
+		 * the handle of this node in the open list.
+		 */
+		private int handle = -1;
 		
 		public ANode(final int x, final int y) {
 			super(x, y);
@@ -164,7 +299,7 @@ class AStarImpl implements AlgorithmDefinition {
 		
 		protected double getF() {
 			if (g == null || h == null || f == null) {
-				f = getG() + getH();
+				f = getG() + weight * getH();
 			}
 			return f;
 		}
@@ -180,7 +315,8 @@ class AStarImpl implements AlgorithmDefinition {
 		private double getMoveCost(final ANode adjacent) {
 			if (adjacent == null)
 				return 0;
-			return (x == adjacent.x || y == adjacent.y) ? 1.0D : diagonal;
+			final double step = (x == adjacent.x || y == adjacent.y) ? 1.0D : diagonal;
+			return costs != null ? step * costs.getCost(adjacent, this) : step;
 		}
 		
 		protected double getH() {
@@ -204,13 +340,12 @@ class AStarImpl implements AlgorithmDefinition {
 			final ANode[] all = getNeighbors(eight);
 			if (flags == null)
 				return all;
-			final LinkedList<ANode> open = new LinkedList<ANode>();
+			int count = 0;
 			for (final ANode n : all) {
-				if (!flags.blocked(n, this)) {
-					open.add(n);
-				}
+				if (!blocked(n, this))
+					all[count++] = n;
 			}
-			return open.toArray(new ANode[open.size()]);
+			return count == all.length ? all : Arrays.copyOf(all, count);
 		}
 		
 	}
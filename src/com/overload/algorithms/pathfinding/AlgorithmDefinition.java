@@ -18,4 +18,16 @@ interface AlgorithmDefinition extends AlgorithmSettings {
 	 */
 	public List<Locatable> findPath(final Locatable start, final Locatable end);
 	
+	/**
+	 * Returns how many nodes the last search expanded.
+	 * @return the number of nodes expanded by the last search.
+	 */
+	public int getExpanded();
+	
+	/**
+	 * Sets the statistics the following searches count into, the caller resets them between searches.
+	 * @param stats the statistics to count into, or null to disable counting.
+	 */
+	public void setStatistics(final SearchStats stats);
+	
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.overload.algorithms.pathfinding;
 
 import com.overload.algorithms.pathfinding.Pathfinding.Flags;
 import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
 
 /**
  * Defines set methods for algorithm definitions.
@@ -34,5 +35,30 @@ interface AlgorithmSettings {
 	 * @param diagonal the cost of diagonal movement.
 	 */
 	public void setDiagonal(final double diagonal);
-	
+
+	/**
+	 * Sets the weight of the heuristic, nodes are ordered by <tt>f = g + weight * h</tt> (weighted A*).<br>
+	 * Weights above 1.0 expand fewer nodes but may return paths costing up to weight times the optimal cost.
+	 * Algorithms without a heuristic, or which require a consistent one, ignore this method.<br>
+	 * Defaults to 1.0.
+	 * @param weight the weight of the heuristic, at least 1.0.
+	 */
+	public void setWeight(final double weight);
+
+	/**
+	 * Sets how open nodes with equal <tt>f</tt> are ordered, see {@link TieBreaking}.<br>
+	 * Algorithms whose open list isn't ordered by <tt>f</tt> ignore this method.<br>
+	 * Defaults to null, which orders equal keys by the heap alone.
+	 * @param tie the tie-breaking, or null.
+	 */
+	public void setTieBreaking(final TieBreaking tie);
+
+	/**
+	 * Sets the bounds of the grid, locations outside of [0, width) x [0, height) are considered blocked.<br>
+	 * Grid-based algorithms require the bounds to be set before searching, other algorithms are unbounded and ignore this method.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 */
+	public void setBounds(final int width, final int height);
+
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Bidirectional A* pathfinding algorithm on a bounded grid.<br>
+ * Two frontiers grow toward each other, one from the start and one backward from the destination,
+ * always expanding the smaller one. The cheapest meeting point is kept, and the search stops once either
+ * frontier's lowest f score reaches its cost, no path through the unexpanded cells can be cheaper.<br>
+ * The backward search tests the forward move into the cell it came from,
+ * so the expanded cell is passed as the location and the new cell as its parent.
+ * @see GridAStarImpl
+ * @author Odell
+ */
+class BidirectionalAStarImpl extends GridDefinition {
+
+	/**
+	 * the backward search state, indexed like the forward arrays and stamped with the same generation.
+	 */
+	private float[] gb;
+	private int[] parentb, stampb;
+	private IndexedHeap openb;
+
+	protected final Node origin = new Node(0, 0);
+
+	@Override
+	protected void allocate(final int cells) {
+		super.allocate(cells);
+		gb = new float[cells];
+		parentb = new int[cells];
+		stampb = new int[cells];
+		openb = new IndexedHeap(cells);
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		origin.set(source % width, source / width);
+		if (generation == 1)
+			Arrays.fill(stampb, 0); // the forward stamps were reset
+		relax(source, -1, 0.0F, heuristic(source % width, source / width));
+		if (source == goal)
+			return goal;
+		try {
+			gb[goal] = 0.0F;
+			parentb[goal] = -1;
+			stampb[goal] = generation;
+			openb.offer(goal, heuristicBack(goal % width, goal / width));
+			final int dirs = eight ? 8 : 4;
+			float best = Float.POSITIVE_INFINITY;
+			int meet = -1;
+			while (!open.isEmpty() && !openb.isEmpty()) {
+				if (peekF() >= best || openb.peekKey() >= best)
+					break;
+				expanded++;
+				final boolean forward = open.size() <= openb.size();
+				final int curr = forward ? open.poll() : openb.poll();
+				final int cx = curr % width, cy = curr / width;
+				final float cg = forward ? g[curr] : gb[curr];
+				for (int d = 0; d < dirs; d++) {
+					final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+					if (!inBounds(nx, ny))
+						continue;
+					final int n = ny * width + nx;
+					if (forward) {
+						final boolean seen = visited(n);
+						if (seen && !open.contains(n)) // closed
+							continue;
+						if (blocked(nx, ny, cx, cy))
+							continue;
+						final float ng = cg + step(nx, ny, cx, cy);
+						if (seen && ng >= g[n])
+							continue;
+						relax(n, curr, ng, ng + heuristic(nx, ny));
+						if (stampb[n] == generation && ng + gb[n] < best) {
+							best = ng + gb[n];
+							meet = n;
+						}
+					} else {
+						final boolean seen = stampb[n] == generation;
+						if (seen && !openb.contains(n)) // closed
+							continue;
+						if (blocked(cx, cy, nx, ny)) // the forward move from n into the current cell
+							continue;
+						final float ng = cg + step(cx, cy, nx, ny);
+						if (seen && ng >= gb[n])
+							continue;
+						if (stats != null)
+							stats.reached(seen, seen ? openb.size() : openb.size() + 1);
+						gb[n] = ng;
+						parentb[n] = curr;
+						stampb[n] = generation;
+						openb.offer(n, ng + heuristicBack(nx, ny));
+						if (visited(n) && ng + g[n] < best) {
+							best = ng + g[n];
+							meet = n;
+						}
+					}
+				}
+			}
+			return meet;
+		} finally {
+			openb.clear();
+		}
+	}
+
+	/**
+	 * Joins the forward path to the meeting cell with the backward path from it.
+	 */
+	@Override
+	protected List<Locatable> resolve(final int target) {
+		final List<Locatable> path = super.resolve(target);
+		for (int c = stampb[target] == generation ? parentb[target] : -1; c != -1; c = parentb[c])
+			path.add(new Node(c % width, c / width));
+		return path;
+	}
+
+	private float heuristicBack(final int x, final int y) {
+		return (float) (weight * heur.distance(probe.set(x, y), origin, diagonal));
+	}
+
+}
\ No newline at end of file
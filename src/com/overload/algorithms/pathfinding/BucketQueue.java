@@ -0,0 +1,133 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A monotone bucket queue of integer handles ordered by a small integer key (Dial's queue).<br>
+ * Keys are spread over a ring of buckets, one per key, so offering and polling take O(1)
+ * instead of O(log n). Keys may never be lower than the key last polled, the ring grows when
+ * a key is further ahead than the ring is long.<br>
+ * Handles aren't tracked, offering a handle again leaves its old entry behind, which the caller
+ * must skip when polled by comparing {@link #getKey()} to its own best key.
+ * @author Odell
+ */
+class BucketQueue {
+
+	private int[][] buckets;
+	private int[] counts;
+	private int mask;
+	/**
+	 * the key of the current bucket, the lowest key in this queue.
+	 */
+	private int cursor = 0;
+	private int size = 0;
+
+	/**
+	 * Creates an empty queue with a small ring.
+	 */
+	BucketQueue() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty queue whose ring holds keys up to <tt>span - 1</tt> ahead of the lowest key.
+	 * @param span the initial length of the ring.
+	 */
+	BucketQueue(final int span) {
+		final int length = Integer.highestOneBit(Math.max(span, 2) - 1) << 1;
+		buckets = new int[length][];
+		counts = new int[length];
+		mask = length - 1;
+	}
+
+	/**
+	 * @return how many entries are currently in this queue, stale entries included.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether this queue is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return the key of the last polled handle.
+	 */
+	public int getKey() {
+		return cursor;
+	}
+
+	/**
+	 * Inserts the handle with the given key.
+	 * @param handle the handle to insert.
+	 * @param key the key of the handle, not lower than the key last polled.
+	 * @throws IllegalArgumentException if the key is lower than the key last polled.
+	 */
+	public void offer(final int handle, final int key) {
+		if (key < cursor)
+			throw new IllegalArgumentException("key " + key + " is lower than the current key " + cursor);
+		if (key - cursor > mask)
+			grow(key - cursor + 1);
+		push(key & mask, handle);
+		size++;
+	}
+
+	/**
+	 * Removes a handle with the lowest key, which can then be read with {@link #getKey()}.
+	 * @return the removed handle, or -1 if this queue is empty.
+	 */
+	public int poll() {
+		if (size == 0)
+			return -1;
+		while (counts[cursor & mask] == 0)
+			cursor++;
+		final int b = cursor & mask;
+		size--;
+		return buckets[b][--counts[b]];
+	}
+
+	/**
+	 * Removes every entry from this queue and resets the current key to 0.
+	 */
+	public void clear() {
+		if (size > 0)
+			Arrays.fill(counts, 0);
+		size = 0;
+		cursor = 0;
+	}
+
+	private void push(final int b, final int handle) {
+		int[] bucket = buckets[b];
+		if (bucket == null) {
+			bucket = buckets[b] = new int[8];
+		} else if (counts[b] == bucket.length) {
+			bucket = buckets[b] = Arrays.copyOf(bucket, bucket.length << 1);
+		}
+		bucket[counts[b]++] = handle;
+	}
+
+	/**
+	 * Grows the ring to hold keys at least <tt>span - 1</tt> ahead of the current key,
+	 * moving every bucket to the slot of its key in the longer ring.
+	 */
+	private void grow(final int span) {
+		final int[][] oldBuckets = buckets;
+		final int[] oldCounts = counts;
+		final int oldMask = mask;
+		final int length = Integer.highestOneBit(span - 1) << 1;
+		buckets = new int[length][];
+		counts = new int[length];
+		mask = length - 1;
+		for (int i = 0; i <= oldMask; i++) {
+			final int key = cursor + i;
+			final int from = key & oldMask, to = key & mask;
+			buckets[to] = oldBuckets[from];
+			counts[to] = oldCounts[from];
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,297 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import com.overload.algorithms.floodfill.Floodfill;
+import com.overload.algorithms.floodfill.Floodfill.FillResult;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * A connected component index of a bounded grid, which answers whether a location can reach another in O(1).<br>
+ * Components are labelled with the {@link Floodfill.Algorithm#LINEAR} span fill, one fill per component.
+ * Opening a cell merges the components around it through a union-find over the labels,
+ * closing a cell may split its component, which is relabelled lazily by the next query.<br>
+ * The index must be told about every changed cell, with {@link #opened(int, int)}, {@link #closed(int, int)}
+ * or {@link #invalidate(Rectangle)}. Flags which depend on the parent aren't supported, cells are tested without one.
+ * Locations outside of the bounds are considered blocked.
+ * @see Pathfinding#setComponents(ComponentIndex)
+ * @author Odell
+ */
+public class ComponentIndex {
+
+	private final Flags flags;
+	private final int width, height;
+	private final boolean eight;
+	private final Floodfill fill;
+
+	/**
+	 * the label of every cell, or -1 if the cell is blocked.
+	 */
+	private final int[] labels;
+	/**
+	 * the union-find parent of every label.
+	 */
+	private int[] union = new int[64];
+	private int next = 0;
+	/**
+	 * the fill a cell was last labelled by, cells labelled by the current fill are treated as blocked by it.
+	 */
+	private final int[] mark;
+	private int batch = 0;
+	/**
+	 * the cells closed since the last query, whose components may have split.
+	 */
+	private int[] pending = new int[16];
+	private int pendingCount = 0;
+
+	private int label;
+	private final Floodfill.Flags unlabelled = new Floodfill.Flags() {
+		public boolean blocked(final Locatable loc) {
+			final int x = loc.getX(), y = loc.getY();
+			return !inBounds(x, y) || mark[y * width + x] == batch || ComponentIndex.this.blocked(x, y);
+		}
+	};
+	private final FillResult labeller = new FillResult() {
+		public void locationFound(final Locatable loc) {
+			final int cell = loc.getY() * width + loc.getX();
+			labels[cell] = label;
+			mark[cell] = batch;
+		}
+	};
+	private final Node probe = new Node(0, 0);
+
+	/**
+	 * Creates and builds a component index of the grid.
+	 * @param flags the collision flags, which mustn't depend on the parent.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param eight whether cells connect in eight or four directions, which must match the pathfinder.
+	 */
+	public ComponentIndex(final Flags flags, final int width, final int height, final boolean eight) {
+		if (flags == null)
+			throw new IllegalArgumentException("flags can't be null");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if ((long) width * (long) height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bounds are too large");
+		this.flags = flags;
+		this.width = width;
+		this.height = height;
+		this.eight = eight;
+		this.labels = new int[width * height];
+		this.mark = new int[width * height];
+		this.fill = new Floodfill(Floodfill.Algorithm.LINEAR, unlabelled);
+		this.fill.setEight(eight);
+		rebuild();
+	}
+
+	/**
+	 * @return the width of the indexed grid.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the indexed grid.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return whether cells connect in eight directions.
+	 */
+	public boolean isEight() {
+		return eight;
+	}
+
+	/**
+	 * Relabels every cell from scratch.
+	 */
+	public synchronized void rebuild() {
+		Arrays.fill(labels, -1);
+		Arrays.fill(mark, 0);
+		batch = 1;
+		next = 0;
+		pendingCount = 0;
+		for (int y = 0, cell = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, cell++) {
+				if (mark[cell] != batch && !blocked(x, y))
+					flood(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Returns the component of a cell, two cells are connected if and only if their components are equal.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @return the component of the cell, or -1 if it's blocked or out of bounds.
+	 */
+	public synchronized int getComponent(final int x, final int y) {
+		if (!inBounds(x, y))
+			return -1;
+		flush();
+		return find(labels[y * width + x]);
+	}
+
+	/**
+	 * Determines whether a search from the start can reach the end.<br>
+	 * Searches may begin on a blocked location, such a start is connected through its free neighbors.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return <tt>false</tt> if the end is unreachable, because it's blocked or sealed off from the start.
+	 */
+	public synchronized boolean connected(final Locatable start, final Locatable end) {
+		final int ex = end.getX(), ey = end.getY(), sx = start.getX(), sy = start.getY();
+		if (!inBounds(ex, ey) || !inBounds(sx, sy))
+			return false;
+		flush();
+		final int target = find(labels[ey * width + ex]);
+		if (target < 0)
+			return false;
+		final int source = find(labels[sy * width + sx]);
+		if (source >= 0)
+			return source == target;
+		for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+			final int nx = sx + GridAStarImpl.DX[d], ny = sy + GridAStarImpl.DY[d];
+			if (inBounds(nx, ny) && find(labels[ny * width + nx]) == target)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Notifies this index that a cell is no longer blocked, merging the components around it.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 */
+	public synchronized void opened(final int x, final int y) {
+		if (!inBounds(x, y))
+			return;
+		final int cell = y * width + x;
+		if (labels[cell] >= 0)
+			return;
+		final int id = newLabel();
+		labels[cell] = id;
+		for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+			final int nx = x + GridAStarImpl.DX[d], ny = y + GridAStarImpl.DY[d];
+			if (inBounds(nx, ny) && labels[ny * width + nx] >= 0)
+				union(id, labels[ny * width + nx]);
+		}
+	}
+
+	/**
+	 * Notifies this index that a cell is now blocked, its component is relabelled by the next query.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 */
+	public synchronized void closed(final int x, final int y) {
+		if (!inBounds(x, y))
+			return;
+		final int cell = y * width + x;
+		if (labels[cell] < 0)
+			return;
+		labels[cell] = -1;
+		if (pendingCount == pending.length)
+			pending = Arrays.copyOf(pending, pendingCount << 1);
+		pending[pendingCount++] = cell;
+	}
+
+	/**
+	 * Notifies this index that the collision flags within the region have changed,
+	 * every cell in the region is tested again and opened or closed accordingly.
+	 * @param region the changed region.
+	 */
+	public synchronized void invalidate(final Rectangle region) {
+		final Rectangle r = region.intersection(new Rectangle(0, 0, width, height));
+		for (int y = r.y; y < r.y + r.height; y++) {
+			for (int x = r.x; x < r.x + r.width; x++) {
+				if (blocked(x, y))
+					closed(x, y);
+				else
+					opened(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Relabels the components around every cell closed since the last query.<br>
+	 * Every piece a closed cell split its component into borders that cell, so filling from its free neighbors
+	 * gives every piece a label of its own, without touching any other component.
+	 */
+	private void flush() {
+		if (pendingCount == 0)
+			return;
+		if (next > labels.length << 1) { // the labels are exhausted by relabelling, start over
+			rebuild();
+			return;
+		}
+		newBatch();
+		for (int i = 0; i < pendingCount; i++) {
+			final int cell = pending[i];
+			if (labels[cell] >= 0) // opened again since
+				continue;
+			final int x = cell % width, y = cell / width;
+			for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+				final int nx = x + GridAStarImpl.DX[d], ny = y + GridAStarImpl.DY[d];
+				if (inBounds(nx, ny) && labels[ny * width + nx] >= 0 && mark[ny * width + nx] != batch)
+					flood(nx, ny);
+			}
+		}
+		pendingCount = 0;
+	}
+
+	/**
+	 * Labels every cell connected to the given free cell with a new label.
+	 */
+	private void flood(final int x, final int y) {
+		label = newLabel();
+		fill.fill(probe.set(x, y), labeller);
+	}
+
+	private void newBatch() {
+		if (++batch == Integer.MAX_VALUE) {
+			Arrays.fill(mark, 0);
+			batch = 1;
+		}
+	}
+
+	private int newLabel() {
+		if (next == union.length)
+			union = Arrays.copyOf(union, next << 1);
+		union[next] = next;
+		return next++;
+	}
+
+	/**
+	 * Finds the root of a label, halving the path on the way.
+	 * @return the root label, or -1 for a blocked cell.
+	 */
+	private int find(int id) {
+		if (id < 0)
+			return -1;
+		while (union[id] != id)
+			id = union[id] = union[union[id]];
+		return id;
+	}
+
+	private void union(final int a, final int b) {
+		final int ra = find(a), rb = find(b);
+		if (ra != rb)
+			union[ra] = rb;
+	}
+
+	private boolean inBounds(final int x, final int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	private boolean blocked(final int x, final int y) {
+		return flags.blocked(probe.set(x, y), null);
+	}
+
+}
\ No newline at end of file
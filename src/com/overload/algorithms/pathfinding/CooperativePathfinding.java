@@ -0,0 +1,310 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Windowed Hierarchical Cooperative A* (WHCA*), as described by David Silver in 2005.<br>
+ * Every agent is planned in space-time, (x, y, t), against a shared {@link ReservationTable},
+ * for a window of a few time steps only, so the cost of a plan is bounded by the window rather than the map.
+ * Beyond the window the true distance to the goal, ignoring other agents, serves as the heuristic,
+ * which is read from a {@link FlowField} of the goal and cached for the agents sharing it.<br>
+ * Each time step an agent moves to a neighbor or waits, a wait at the goal is free.
+ * A plan short of the goal only ends where no other agent has reserved the next window, but the agent isn't
+ * reserved beyond its plan, so an agent must be planned again before its plan runs out, every half window is common.
+ * An agent which can't be planned again keeps its previous plan, once that runs out other agents may move into it.<br>
+ * Plans are thread-safe, each runs on its own search context borrowed from a pool,
+ * and a plan which conflicts with one reserved meanwhile on another thread is searched again.
+ * The collision flags must be safe to read from several threads at once and must not depend on the parent.
+ * @author Odell
+ */
+public class CooperativePathfinding {
+
+	/**
+	 * the number of goals whose distances are cached.
+	 */
+	private static final int CACHED_GOALS = 64;
+	/**
+	 * how many times a plan is searched again after losing a race for its reservations.
+	 */
+	private static final int ATTEMPTS = 8;
+
+	private final Flags flags;
+	private final int width, height;
+	private final boolean eight;
+	private final double diagonal;
+	private final int window;
+	private final ReservationTable table;
+	private final ConcurrentLinkedQueue<Context> contexts = new ConcurrentLinkedQueue<Context>();
+	private final LinkedHashMap<Integer, FlowField> distances = new LinkedHashMap<Integer, FlowField>(16, 0.75F, true) {
+		private static final long serialVersionUID = 1L;
+		protected boolean removeEldestEntry(final Map.Entry<Integer, FlowField> eldest) {
+			return size() > CACHED_GOALS;
+		}
+	};
+
+	/**
+	 * Creates a cooperative pathfinder.
+	 * @param flags the static collision flags, agents are reserved in the table rather than the flags.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param eight whether agents move in eight or four directions.
+	 * @param diagonal the cost of diagonal movement.
+	 * @param window the number of time steps planned ahead.
+	 * @param table the reservation table shared by every agent.
+	 */
+	public CooperativePathfinding(final Flags flags, final int width, final int height, final boolean eight,
+			final double diagonal, final int window, final ReservationTable table) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if (window <= 0)
+			throw new IllegalArgumentException("window must be positive");
+		if (table == null)
+			throw new IllegalArgumentException("table can't be null");
+		this.flags = flags;
+		this.width = width;
+		this.height = height;
+		this.eight = eight;
+		this.diagonal = diagonal;
+		this.window = window;
+		this.table = table;
+	}
+
+	/**
+	 * @return the number of time steps planned ahead.
+	 */
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * @return the shared reservation table.
+	 */
+	public ReservationTable getTable() {
+		return table;
+	}
+
+	/**
+	 * Plans the next window of an agent and reserves it.<br>
+	 * An agent which is following a previous plan should use {@link #replan(int, List, int, Locatable, Locatable, int)}.
+	 * @param agent the agent, a non-negative id.
+	 * @param start the location of the agent at the given time step.
+	 * @param goal the destination of the agent.
+	 * @param time the current time step.
+	 * @return the reserved locations of the agent for the time steps [time, time + window],
+	 * or fewer if other agents block every way through the window,
+	 * or null if the goal can't be reached or the agent has nowhere to stay.
+	 */
+	public List<Locatable> plan(final int agent, final Locatable start, final Locatable goal, final int time) {
+		final FlowField field = distances(goal);
+		if (field == null || !field.reachable(start))
+			return null;
+		final Context context = borrow();
+		try {
+			for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+				final List<Locatable> path = context.search(agent, start, goal, time, field);
+				if (path == null)
+					return null;
+				if (table.reserve(agent, path, time))
+					return path;
+			}
+			return null;
+		} finally {
+			context.reset();
+			contexts.offer(context);
+		}
+	}
+
+	/**
+	 * Plans the next window of an agent which is following a previous plan, and swaps the reservations over.<br>
+	 * The previous plan stays reserved while searching, so no other agent can claim the cells the agent may need,
+	 * afterwards the steps only the previous plan used are released.
+	 * @param agent the agent, a non-negative id.
+	 * @param previous the previous plan of the agent.
+	 * @param previousTime the time step the previous plan began at.
+	 * @param start the location of the agent at the given time step.
+	 * @param goal the destination of the agent.
+	 * @param time the current time step.
+	 * @return the reserved locations of the agent for the time steps [time, time + window], or fewer,
+	 * or null if no plan could be reserved, the previous plan then stays reserved.
+	 */
+	public List<Locatable> replan(final int agent, final List<? extends Locatable> previous, final int previousTime,
+			final Locatable start, final Locatable goal, final int time) {
+		final List<Locatable> path = plan(agent, start, goal, time);
+		if (path == null)
+			return null;
+		for (int i = Math.max(0, time - previousTime), size = previous.size(); i < size; i++) {
+			final Locatable old = previous.get(i);
+			final int j = previousTime + i - time;
+			if (j < path.size()) {
+				final Locatable now = path.get(j);
+				if (now.getX() == old.getX() && now.getY() == old.getY())
+					continue;
+			}
+			table.release(agent, old.getX(), old.getY(), previousTime + i);
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the distances to a goal, computing them once for every agent sharing it.
+	 * @return the distances, or null if the goal is out of bounds or blocked.
+	 */
+	private FlowField distances(final Locatable goal) {
+		final int gx = goal.getX(), gy = goal.getY();
+		if (gx < 0 || gy < 0 || gx >= width || gy >= height)
+			return null;
+		final Integer key = gy * width + gx;
+		FlowField field;
+		synchronized (distances) {
+			field = distances.get(key);
+		}
+		if (field == null) {
+			// computed outside of the lock, agents sharing a new goal at once may compute it twice
+			field = FlowField.compute(flags, width, height, eight, diagonal, Collections.singletonList(goal));
+			synchronized (distances) {
+				distances.put(key, field);
+			}
+		}
+		return field.reachable(goal) ? field : null;
+	}
+
+	private Context borrow() {
+		final Context context = contexts.poll();
+		return context != null ? context : new Context();
+	}
+
+	/**
+	 * A space-time search context, only ever used by one thread at a time.<br>
+	 * Each state is a cell at a time step in the window, the states are numbered as they're discovered.
+	 * @author Odell
+	 */
+	private class Context {
+
+		private final HashMap<Long, Integer> states = new HashMap<Long, Integer>();
+		private final IndexedHeap open = new IndexedHeap();
+		private int[] cell = new int[256], depth = new int[256], parent = new int[256];
+		private float[] g = new float[256];
+		private boolean[] closed = new boolean[256];
+		private int count = 0;
+		private final Node probe = new Node(0, 0);
+
+		private List<Locatable> search(final int agent, final Locatable start, final Locatable goal, final int time, final FlowField field) {
+			reset();
+			final int target = goal.getY() * width + goal.getX();
+			final int source = state(start.getY() * width + start.getX(), 0, -1, 0.0F);
+			open.offerPacked(source, key(source, field));
+			final int dirs = eight ? 8 : 4;
+			int curr, deepest = source;
+			while ((curr = open.poll()) >= 0) {
+				closed[curr] = true;
+				final int c = cell[curr], cx = c % width, cy = c / width, d = depth[curr], t = time + d;
+				if (d == window) {
+					if (c == target || rests(agent, cx, cy, t))
+						return resolve(curr);
+					continue;
+				}
+				if (d > depth[deepest] && (c == target || rests(agent, cx, cy, t)))
+					deepest = curr;
+				for (int dir = -1; dir < dirs; dir++) { // -1 waits
+					final int nx = dir < 0 ? cx : cx + GridAStarImpl.DX[dir], ny = dir < 0 ? cy : cy + GridAStarImpl.DY[dir];
+					if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+						continue;
+					final int n = ny * width + nx;
+					if (dir >= 0 && flags != null && flags.blocked(probe.set(nx, ny), null))
+						continue;
+					if (field.getDistance(nx, ny) == Double.POSITIVE_INFINITY) // cut off from the goal
+						continue;
+					if (!table.available(agent, cx, cy, nx, ny, t))
+						continue;
+					final float ng = g[curr] + (dir < 0 ? (c == target ? 0.0F : 1.0F) : dir < 4 ? 1.0F : (float) diagonal);
+					final Integer known = states.get(stateKey(n, d + 1));
+					if (known == null) {
+						final int s = state(n, d + 1, curr, ng);
+						open.offerPacked(s, key(s, field));
+					} else if (!closed[known] && ng < g[known]) {
+						g[known] = ng;
+						parent[known] = curr;
+						open.offerPacked(known, key(known, field));
+					}
+				}
+			}
+			// every way through the window is reserved, the agent follows the plan which lasts the longest
+			final int s = cell[source];
+			return deepest != source || s == target || rests(agent, s % width, s / width, time) ? resolve(deepest) : null;
+		}
+
+		/**
+		 * Tests whether no other agent has reserved a cell for a window after the given time step.
+		 */
+		private boolean rests(final int agent, final int x, final int y, final int time) {
+			for (int t = time + 1, end = time + window; t <= end; t++) {
+				if (!table.available(agent, x, y, t))
+					return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Registers a newly discovered state.
+		 * @return the number of the state.
+		 */
+		private int state(final int c, final int d, final int from, final float cost) {
+			if (count == cell.length) {
+				final int len = count << 1;
+				cell = Arrays.copyOf(cell, len);
+				depth = Arrays.copyOf(depth, len);
+				parent = Arrays.copyOf(parent, len);
+				g = Arrays.copyOf(g, len);
+				closed = Arrays.copyOf(closed, len);
+			}
+			cell[count] = c;
+			depth[count] = d;
+			parent[count] = from;
+			g[count] = cost;
+			closed[count] = false;
+			states.put(stateKey(c, d), count);
+			return count++;
+		}
+
+		/**
+		 * Returns the packed key of a state, ties prefer the state closer to the goal.
+		 */
+		private long key(final int s, final FlowField field) {
+			final int c = cell[s];
+			final double h = field.getDistance(c % width, c / width);
+			return TieBreaking.HIGH_G.key(g[s] + h, g[s], s);
+		}
+
+		private List<Locatable> resolve(int s) {
+			final ArrayList<Locatable> path = new ArrayList<Locatable>(window + 1);
+			for (; s >= 0; s = parent[s])
+				path.add(new Node(cell[s] % width, cell[s] / width));
+			Collections.reverse(path);
+			return path;
+		}
+
+		private void reset() {
+			states.clear();
+			open.clear();
+			count = 0;
+		}
+
+		private long stateKey(final int c, final int d) {
+			return ((long) d << 32) | c;
+		}
+
+	}
+
+}
\ No newline at end of file
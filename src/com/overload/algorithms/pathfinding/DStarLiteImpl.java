@@ -0,0 +1,318 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * D* Lite incremental pathfinding algorithm, as described by Koenig and Likhachev in 2002.<br>
+ * The search runs backward from the destination and is kept between calls, so when the start moves
+ * or cells change, only the vertices affected by the change are expanded again.
+ * A different destination or different settings start a new search.<br>
+ * Changed cells must be reported with {@link #invalidate(Rectangle)}, the heuristic must be consistent.
+ * @see GridAStarImpl
+ * @author Odell
+ */
+class DStarLiteImpl extends GridDefinition implements DynamicDefinition {
+
+	private static final double INFINITY = Double.POSITIVE_INFINITY;
+	/**
+	 * the relative tolerance within which a key is considered tied with the start's key.
+	 */
+	private static final double TOLERANCE = 1.0E-9;
+
+	/**
+	 * the cost of a cell to the goal, kept in double so keys which tie exactly don't round apart.
+	 */
+	private double[] cost;
+	/**
+	 * the one-step lookahead cost of a cell, the cost of its best successor.
+	 */
+	private double[] rhs;
+	private boolean valid = false;
+	private int goal = -1, last = -1;
+	/**
+	 * the key modifier, the heuristic distance the start has moved since the search began.
+	 */
+	private double km = 0.0D;
+	/**
+	 * the cheapest successor found by the last call to {@link #lookahead(int)}.
+	 */
+	private int successor = -1;
+	/**
+	 * cells changed since the last search.
+	 */
+	private int[] changed = new int[16];
+	private int changes = 0;
+
+	@Override
+	public void setEight(boolean eight) {
+		super.setEight(eight);
+		valid = false;
+	}
+
+	@Override
+	public void setFlags(Flags flags) {
+		super.setFlags(flags);
+		valid = false;
+	}
+
+	@Override
+	public void setHeuristic(Heuristic heur) {
+		super.setHeuristic(heur);
+		valid = false;
+	}
+
+	/**
+	 * Ignored, landmarks assume a static grid and the key modifier needs the plain heuristic.
+	 */
+	@Override
+	void setLandmarks(final Landmarks landmarks) {
+	}
+
+	@Override
+	public void setDiagonal(double diagonal) {
+		super.setDiagonal(diagonal);
+		valid = false;
+	}
+
+	/**
+	 * Ignored, the key of a vertex requires a consistent heuristic.
+	 */
+	@Override
+	public void setWeight(double weight) {}
+
+	/**
+	 * Ignored, the open list is ordered by the first key alone and every vertex tied with the start is expanded.
+	 */
+	@Override
+	public void setTieBreaking(TieBreaking tie) {}
+
+	@Override
+	public void invalidate(final Rectangle region) {
+		if (!valid)
+			return;
+		final int minX = Math.max(0, region.x), minY = Math.max(0, region.y);
+		final int maxX = Math.min(width, region.x + region.width), maxY = Math.min(height, region.y + region.height);
+		for (int y = minY; y < maxY; y++) {
+			for (int x = minX; x < maxX; x++) {
+				if (changes == changed.length)
+					changed = Arrays.copyOf(changed, changes << 1);
+				changed[changes++] = y * width + x;
+			}
+		}
+	}
+
+	/**
+	 * Allocates the double costs instead of the float costs and parents, which D* Lite doesn't use.
+	 */
+	@Override
+	protected void allocate(final int cells) {
+		stamp = new int[cells];
+		open = new IndexedHeap(cells);
+		cost = new double[cells];
+		rhs = new double[cells];
+	}
+
+	@Override
+	public List<Locatable> findPath(final Locatable start, final Locatable end) {
+		if ((width <= 0 || height <= 0) && grid != null)
+			setBounds(grid.getWidth(), grid.getHeight());
+		if (width <= 0 || height <= 0)
+			throw new IllegalStateException("grid bounds are not set");
+		if (heur == null)
+			this.heur = eight ? Heuristic.CHEBYSHEV : Heuristic.MANHATTAN; // consistent
+		expanded = 0;
+		if (!inBounds(start.getX(), start.getY()) || !inBounds(end.getX(), end.getY()))
+			return null;
+		if (blocked(end.getX(), end.getY(), -1, -1)) // ensure the destination isn't blocked already
+			return null;
+		final int source = start.getY() * width + start.getX(), target = end.getY() * width + end.getX();
+		dest.set(start.getX(), start.getY()); // the heuristic is measured from the start
+		if (!valid || stamp == null || target != goal) {
+			changes = 0;
+			return search(source, target) >= 0 ? follow(source) : null;
+		}
+		if (source != last || changes > 0) {
+			km += heur.distance(probe.set(last % width, last / width), dest, diagonal);
+			last = source;
+			for (int i = 0; i < changes; i++) {
+				final int c = changed[i], cx = c % width, cy = c / width;
+				updateVertex(c);
+				for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+					final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+					if (inBounds(nx, ny))
+						updateVertex(ny * width + nx);
+				}
+			}
+		}
+		changes = 0;
+		computeShortestPath(source);
+		return valueOf(source) < INFINITY ? follow(source) : null;
+	}
+
+	/**
+	 * Discards the previous search and searches from scratch.
+	 */
+	@Override
+	protected int search(final int source, final int goal) {
+		restart(source, goal);
+		computeShortestPath(source);
+		return valueOf(source) < INFINITY ? source : -1;
+	}
+
+	private void restart(final int source, final int target) {
+		prepare();
+		open.clear();
+		goal = target;
+		last = source;
+		km = 0.0D;
+		valid = true;
+		touch(target);
+		rhs[target] = 0.0D;
+		open.offer(target, key(target));
+	}
+
+	/**
+	 * Expands inconsistent vertices until the start is consistent and no vertex with a lower key remains.<br>
+	 * Vertices whose key ties with the start's within a rounding tolerance are expanded as well,
+	 * since a tie rounded the wrong way would otherwise leave an outdated cost at the start.
+	 */
+	private void computeShortestPath(final int source) {
+		touch(source);
+		while (!open.isEmpty() && (tied(open.peekKey(), key(source)) || rhs[source] != cost[source])) {
+			final double old = open.peekKey();
+			final int u = open.poll();
+			expanded++;
+			final double k = key(u);
+			if (old < k) { // the key is outdated by the moved start
+				open.offer(u, k);
+			} else if (cost[u] > rhs[u]) { // overconsistent
+				cost[u] = rhs[u];
+				updatePredecessors(u);
+			} else { // underconsistent
+				cost[u] = INFINITY;
+				updateVertex(u);
+				updatePredecessors(u);
+			}
+		}
+	}
+
+	private void updatePredecessors(final int u) {
+		final int ux = u % width, uy = u / width;
+		for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+			final int px = ux + GridAStarImpl.DX[d], py = uy + GridAStarImpl.DY[d];
+			if (inBounds(px, py))
+				updateVertex(py * width + px);
+		}
+	}
+
+	/**
+	 * Recomputes the lookahead cost of a vertex from its successors, and queues it if it's inconsistent.
+	 */
+	private void updateVertex(final int u) {
+		touch(u);
+		if (u != goal)
+			rhs[u] = lookahead(u);
+		if (cost[u] != rhs[u]) {
+			open.offer(u, key(u));
+			if (stats != null)
+				stats.opened(open.size());
+		} else {
+			open.remove(u);
+		}
+	}
+
+	/**
+	 * Finds the cheapest successor of a vertex, which is stored in {@link #successor}.
+	 * @return the cost through the cheapest successor, or infinity if there's none.
+	 */
+	private double lookahead(final int u) {
+		final int ux = u % width, uy = u / width;
+		double min = INFINITY;
+		int arg = -1;
+		for (int d = 0, dirs = eight ? 8 : 4; d < dirs; d++) {
+			final int sx = ux + GridAStarImpl.DX[d], sy = uy + GridAStarImpl.DY[d];
+			if (!inBounds(sx, sy))
+				continue;
+			final int s = sy * width + sx;
+			final double gs = valueOf(s);
+			if (gs == INFINITY)
+				continue;
+			if (blocked(sx, sy, ux, uy))
+				continue;
+			final double c = gs + cost(sx, sy, ux, uy);
+			if (c < min) {
+				min = c;
+				arg = s;
+			}
+		}
+		successor = arg;
+		return min;
+	}
+
+	/**
+	 * Returns the cost of moving between adjacent cells like {@link #step(int, int, int, int)}, but in double,
+	 * a diagonal rounded to float would make the double heuristic inconsistent by a rounding error.
+	 */
+	private double cost(final int x, final int y, final int px, final int py) {
+		final double step = x != px && y != py ? diagonal : 1.0D;
+		return costs != null ? step * costs.getCost(probe.set(x, y), probeParent.set(px, py)) : step;
+	}
+
+	/**
+	 * Follows the cheapest successors from the start to the goal.
+	 */
+	private List<Locatable> follow(int curr) {
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		path.add(new Node(curr % width, curr / width));
+		for (int steps = width * height; curr != goal; steps--) {
+			lookahead(curr);
+			curr = successor;
+			if (curr < 0 || steps == 0)
+				return null;
+			path.add(new Node(curr % width, curr / width));
+		}
+		return path;
+	}
+
+	/**
+	 * Returns the key of a vertex, min(g, rhs) + h + km, with the heuristic in double like the costs.<br>
+	 * Ties aren't broken by min(g, rhs), instead every vertex tied with the start is expanded.
+	 */
+	private double key(final int u) {
+		return Math.min(cost[u], rhs[u]) + heur.distance(probe.set(u % width, u / width), dest, diagonal) + km;
+	}
+
+	/**
+	 * Determines whether a key is below the start's key, or tied with it within the rounding tolerance.
+	 */
+	private static boolean tied(final double key, final double start) {
+		return key <= start + TOLERANCE * Math.max(1.0D, Math.abs(start));
+	}
+
+	private double valueOf(final int cell) {
+		return visited(cell) ? cost[cell] : INFINITY;
+	}
+
+	/**
+	 * Marks an untouched cell as part of this search, with infinite costs.
+	 */
+	private void touch(final int cell) {
+		if (!visited(cell)) {
+			if (stats != null)
+				stats.generated++;
+			stamp[cell] = generation;
+			cost[cell] = INFINITY;
+			rhs[cell] = INFINITY;
+		}
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.overload.algorithms.pathfinding;
+
+/**
+ * Dial's algorithm, Dijkstra's algorithm over integer costs with a {@link BucketQueue}, on a bounded grid.<br>
+ * Intended for weighted terrain with small integer {@link Pathfinding.CostFlags} costs,
+ * every push and pop is O(1) and paths are exact without relying on a heuristic.<br>
+ * The diagonal cost must be a whole number when searching eight way.
+ * @see GridAStarImpl
+ * @author Odell
+ */
+class DialImpl extends GridDefinition {
+
+	/**
+	 * the exact integer cost to reach a cell from the starting cell.
+	 */
+	private int[] dist;
+	private BucketQueue buckets;
+
+	@Override
+	protected void allocate(final int cells) {
+		super.allocate(cells);
+		dist = new int[cells];
+		buckets = new BucketQueue();
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		if (eight && diagonal != Math.rint(diagonal))
+			throw new IllegalStateException("diagonal cost must be a whole number");
+		final int dirs = eight ? 8 : 4, diag = (int) diagonal;
+		buckets.clear();
+		dist[source] = 0;
+		parent[source] = -1;
+		stamp[source] = generation;
+		buckets.offer(source, 0);
+		int curr;
+		while ((curr = buckets.poll()) >= 0) {
+			if (buckets.getKey() != dist[curr]) // stale entry, the cell was reached cheaper since
+				continue;
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int cx = curr % width, cy = curr / width;
+			for (int d = 0; d < dirs; d++) {
+				final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+				if (!inBounds(nx, ny))
+					continue;
+				final int n = ny * width + nx;
+				if (visited(n) && dist[n] <= dist[curr])
+					continue; // settled
+				if (blocked(nx, ny, cx, cy))
+					continue;
+				int step = d < 4 ? 1 : diag;
+				if (costs != null)
+					step *= costs.getCost(probe.set(nx, ny), probeParent.set(cx, cy));
+				final int nd = dist[curr] + step;
+				if (visited(n) && nd >= dist[n])
+					continue;
+				if (stats != null)
+					stats.reached(visited(n), buckets.size() + 1);
+				dist[n] = nd;
+				parent[n] = curr;
+				stamp[n] = generation;
+				buckets.offer(n, nd);
+			}
+		}
+		return -1;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+
+/**
+ * A pathfinding algorithm model which keeps its search between calls,
+ * and repairs it when notified of changed collision flags instead of searching from scratch.
+ * @author Odell
+ */
+interface DynamicDefinition extends AlgorithmDefinition {
+
+	/**
+	 * Notifies the algorithm that the collision flags within the region have changed.<br>
+	 * The search is repaired on the next call to {@link #findPath(com.overload.loc.Locatable, com.overload.loc.Locatable)}.
+	 * @param region the changed region.
+	 */
+	public void invalidate(final Rectangle region);
+
+}
\ No newline at end of file
@@ -0,0 +1,269 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.CostFlags;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * A flow field toward one or many goals, for moving any number of agents to the same destination.<br>
+ * A single reverse search from every goal at once stores, for each cell, the direction of its next step
+ * along a cheapest path to the nearest goal, so following the field costs O(1) per step.
+ * Unit costs are searched breadth first, other diagonal costs and {@link CostFlags} terrain with Dijkstra's algorithm.<br>
+ * The field is immutable and can be followed from several threads at once.
+ * @author Odell
+ */
+public class FlowField {
+
+	/**
+	 * the direction of a cell which has no next step, a goal or an unreachable cell.
+	 */
+	public static final byte NONE = -1;
+
+	private final int width, height;
+	/**
+	 * the next step of each cell, as an index into {@link GridAStarImpl#DX}.
+	 */
+	private final byte[] directions;
+	private final float[] distances;
+
+	private FlowField(final int width, final int height, final byte[] directions, final float[] distances) {
+		this.width = width;
+		this.height = height;
+		this.directions = directions;
+		this.distances = distances;
+	}
+
+	/**
+	 * Computes the flow field toward the given goals.
+	 * @param flags the collision flags, if they're a {@link BitGrid} its cells are tested directly.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param eight whether agents move in eight or four directions.
+	 * @param diagonal the cost of diagonal movement.
+	 * @param goals the goals, out of bounds or blocked goals are ignored.
+	 * @return the flow field.
+	 */
+	public static FlowField compute(final Flags flags, final int width, final int height, final boolean eight,
+			final double diagonal, final List<? extends Locatable> goals) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if ((long) width * (long) height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bounds are too large");
+		final Search search = new Search(flags, width, height, eight, diagonal);
+		for (final Locatable goal : goals)
+			search.seed(goal.getX(), goal.getY());
+		if ((!eight || diagonal == 1.0D) && !(flags instanceof CostFlags)) {
+			search.breadthFirst();
+		} else {
+			search.dijkstra();
+		}
+		return new FlowField(width, height, search.directions, search.distances);
+	}
+
+	/**
+	 * @return the width of the grid.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the grid.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns the direction of the next step from a cell, as an index into the clockwise directions
+	 * N, E, S, W, NE, SE, SW, NW.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @return the direction of the next step, or {@link #NONE} for goals, unreachable and out of bounds cells.
+	 */
+	public int getDirection(final int x, final int y) {
+		return inBounds(x, y) ? directions[y * width + x] : NONE;
+	}
+
+	/**
+	 * Returns the cost of the cheapest path from a cell to the nearest goal.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @return the cost to the nearest goal, or positive infinity if no goal can be reached.
+	 */
+	public double getDistance(final int x, final int y) {
+		return inBounds(x, y) ? distances[y * width + x] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Determines whether a goal can be reached from a cell.
+	 * @param loc the location of the cell.
+	 * @return <tt>true</tt> if a goal can be reached, otherwise <tt>false</tt>.
+	 */
+	public boolean reachable(final Locatable loc) {
+		return getDistance(loc.getX(), loc.getY()) < Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Returns the next step from a location.
+	 * @param loc the current location.
+	 * @return the next location, or null if the location is a goal or no goal can be reached.
+	 */
+	public Node next(final Locatable loc) {
+		final int d = getDirection(loc.getX(), loc.getY());
+		return d != NONE ? new Node(loc.getX() + GridAStarImpl.DX[d], loc.getY() + GridAStarImpl.DY[d]) : null;
+	}
+
+	/**
+	 * Follows the field from a location to the nearest goal.
+	 * @param start the starting location.
+	 * @return a path to the nearest goal, otherwise null if no goal can be reached.
+	 */
+	public List<Locatable> path(final Locatable start) {
+		if (!reachable(start))
+			return null;
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		Node curr = new Node(start);
+		do {
+			path.add(curr);
+		} while ((curr = next(curr)) != null);
+		return path;
+	}
+
+	/**
+	 * @return a copy of the directions of every cell, indexed by <tt>y * width + x</tt>.
+	 */
+	public byte[] getDirections() {
+		return directions.clone();
+	}
+
+	private boolean inBounds(final int x, final int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * The state of a reverse search from the goals.<br>
+	 * A cell is expanded toward its predecessors, the cells which can move into it,
+	 * so the flags are tested with the predecessor as the parent.
+	 * Blocked predecessors are skipped, so blocked cells keep no direction and an infinite distance.
+	 * @author Odell
+	 */
+	private static class Search {
+
+		private final Flags flags;
+		private final BitGrid grid;
+		private final CostFlags costs;
+		private final int width, height, dirs;
+		private final float diagonal;
+		private final byte[] directions;
+		private final float[] distances;
+		private final Node probe = new Node(0, 0), probeParent = new Node(0, 0);
+		/**
+		 * the seeded goals, in the order they were seeded.
+		 */
+		private int[] seeds = new int[4];
+		private int seeded = 0;
+
+		private Search(final Flags flags, final int width, final int height, final boolean eight, final double diagonal) {
+			this.flags = flags;
+			this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
+			this.costs = flags instanceof CostFlags ? (CostFlags) flags : null;
+			this.width = width;
+			this.height = height;
+			this.dirs = eight ? 8 : 4;
+			this.diagonal = (float) diagonal;
+			final int cells = width * height;
+			this.directions = new byte[cells];
+			this.distances = new float[cells];
+			Arrays.fill(directions, NONE);
+			Arrays.fill(distances, Float.POSITIVE_INFINITY);
+		}
+
+		private void seed(final int x, final int y) {
+			if (x < 0 || y < 0 || x >= width || y >= height || blocked(x, y, -1, -1))
+				return;
+			final int cell = y * width + x;
+			if (distances[cell] == 0.0F)
+				return;
+			distances[cell] = 0.0F;
+			if (seeded == seeds.length)
+				seeds = Arrays.copyOf(seeds, seeded << 1);
+			seeds[seeded++] = cell;
+		}
+
+		/**
+		 * Multi-source breadth first search, every move costs the same.
+		 */
+		private void breadthFirst() {
+			final int[] queue = new int[width * height];
+			int head = 0, tail = 0;
+			for (int i = 0; i < seeded; i++)
+				queue[tail++] = seeds[i];
+			while (head < tail) {
+				final int curr = queue[head++];
+				final int cx = curr % width, cy = curr / width;
+				final float next = distances[curr] + 1.0F;
+				for (int d = 0; d < dirs; d++) {
+					final int px = cx - GridAStarImpl.DX[d], py = cy - GridAStarImpl.DY[d];
+					if (px < 0 || py < 0 || px >= width || py >= height)
+						continue;
+					final int p = py * width + px;
+					if (distances[p] <= next || blocked(px, py, -1, -1) || blocked(cx, cy, px, py))
+						continue;
+					distances[p] = next;
+					directions[p] = (byte) d;
+					queue[tail++] = p;
+				}
+			}
+		}
+
+		/**
+		 * Multi-source Dijkstra, diagonal moves cost more than straight ones.
+		 */
+		private void dijkstra() {
+			final IndexedHeap open = new IndexedHeap(width * height);
+			final boolean[] done = new boolean[width * height];
+			for (int i = 0; i < seeded; i++)
+				open.offer(seeds[i], 0.0D);
+			int curr;
+			while ((curr = open.poll()) >= 0) {
+				done[curr] = true;
+				final int cx = curr % width, cy = curr / width;
+				for (int d = 0; d < dirs; d++) {
+					final int px = cx - GridAStarImpl.DX[d], py = cy - GridAStarImpl.DY[d];
+					if (px < 0 || py < 0 || px >= width || py >= height)
+						continue;
+					final int p = py * width + px;
+					if (done[p] || blocked(px, py, -1, -1) || blocked(cx, cy, px, py))
+						continue;
+					float step = d < 4 ? 1.0F : diagonal;
+					if (costs != null)
+						step *= costs.getCost(probe.set(cx, cy), probeParent.set(px, py));
+					final float next = distances[curr] + step;
+					if (distances[p] <= next)
+						continue;
+					distances[p] = next;
+					directions[p] = (byte) d;
+					open.offer(p, next);
+				}
+			}
+		}
+
+		/**
+		 * Tests a cell, directly if the flags are a bit grid, a negative parent X position means no parent.
+		 */
+		private boolean blocked(final int x, final int y, final int px, final int py) {
+			if (grid != null)
+				return grid.blocked(x, y);
+			return flags != null && flags.blocked(probe.set(x, y), px < 0 ? null : probeParent.set(px, py));
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.PathSearch.Status;
+import com.overload.loc.Locatable;
+import com.overload.util.NanoTimer;
+
+/**
+ * A* pathfinding algorithm on a bounded grid.<br>
+ * All search state is kept in flat primitive arrays indexed by <tt>y * width + x</tt>,
+ * which are reused across calls so a search allocates nothing beyond the returned path.
+ * @see AStarImpl
+ * @see GridDefinition
+ * @author Odell
+ */
+class GridAStarImpl extends GridDefinition implements ResumableDefinition {
+
+	/**
+	 * Neighbor offsets, starts @ north and goes clockwise.<br>
+	 * The first four are straight, the last four are diagonal.
+	 */
+	static final int[] DX = { 0, 1, 0, -1, 1, 1, -1, -1 };
+	static final int[] DY = { -1, 0, 1, 0, -1, 1, 1, -1 };
+
+	/**
+	 * the deadline is checked once every this many plus one expansions.
+	 */
+	private static final int DEADLINE_MASK = 31;
+
+	private int goal = -1;
+	/**
+	 * the expanded cell closest to the destination, the end of the partial path.
+	 */
+	private int best = -1;
+	private float bestH;
+	private Status status = Status.NO_PATH;
+
+	@Override
+	protected int search(final int source, final int goal) {
+		open(source, goal);
+		return resume(Integer.MAX_VALUE, null) == Status.FOUND ? goal : -1;
+	}
+
+	@Override
+	public void begin(final Locatable start, final Locatable end) {
+		if (open != null)
+			open.clear(); // the previous search may not have ended
+		if (!setup(start, end)) {
+			best = -1;
+			status = Status.NO_PATH;
+			return;
+		}
+		open(start.getY() * width + start.getX(), end.getY() * width + end.getX());
+	}
+
+	@Override
+	public Status resume(int maxExpansions, final NanoTimer deadline) {
+		while (status == Status.IN_PROGRESS) {
+			if (maxExpansions-- <= 0 || (deadline != null && (expanded & DEADLINE_MASK) == 0 && !deadline.isActive()))
+				return status;
+			if (open.isEmpty()) {
+				status = Status.NO_PATH;
+			} else {
+				final int curr = open.poll();
+				if (curr == goal) {
+					status = Status.FOUND;
+					open.clear();
+				} else {
+					expand(curr);
+				}
+			}
+		}
+		return status;
+	}
+
+	@Override
+	public List<Locatable> getPath() {
+		if (status == Status.FOUND)
+			return resolve(goal);
+		return best >= 0 ? resolve(best) : null;
+	}
+
+	@Override
+	public double getBound() {
+		return status == Status.FOUND ? weight : Double.POSITIVE_INFINITY;
+	}
+
+	private void open(final int source, final int goal) {
+		this.goal = goal;
+		best = source;
+		bestH = heuristic(source % width, source / width);
+		status = Status.IN_PROGRESS;
+		relax(source, -1, 0.0F, bestH);
+	}
+
+	private void expand(final int curr) {
+		final int dirs = eight ? 8 : 4;
+		expanded++;
+		final int cx = curr % width, cy = curr / width;
+		final float h = heuristic(cx, cy);
+		if (h < bestH) {
+			best = curr;
+			bestH = h;
+		}
+		final float cg = g[curr];
+		for (int d = 0; d < dirs; d++) {
+			final int nx = cx + DX[d], ny = cy + DY[d];
+			if (!inBounds(nx, ny))
+				continue;
+			final int n = ny * width + nx;
+			final boolean seen = visited(n);
+			if (seen && !open.contains(n)) // closed
+				continue;
+			if (blocked(nx, ny, cx, cy)) // tested first, a blocked cell may not have a cost
+				continue;
+			final float ng = cg + step(nx, ny, cx, cy); // G score of node with current node as it's parent
+			if (seen && ng >= g[n])
+				continue;
+			relax(n, curr, ng, ng + heuristic(nx, ny)); // inserts, or decreases the key of an open cell
+		}
+	}
+
+}
\ No newline at end of file
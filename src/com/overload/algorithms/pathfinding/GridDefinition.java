@@ -0,0 +1,308 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.CostFlags;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * A pathfinding algorithm model on a bounded grid.<br>
+ * All search state is kept in flat primitive arrays indexed by <tt>y * width + x</tt>,
+ * which are reused across calls so a search allocates nothing beyond the returned path.<br>
+ * Locations outside of the bounds are considered blocked.<br>
+ * When the flags are a {@link BitGrid} its cells are tested directly, and its size is used if the bounds aren't set.
+ * @author Odell
+ */
+abstract class GridDefinition implements AlgorithmDefinition {
+
+	protected Flags flags;
+	protected BitGrid grid;
+	protected CostFlags costs;
+	protected Heuristic heur;
+	protected TieBreaking tie;
+	protected boolean eight;
+	protected double diagonal = 1.0D, weight = 1.0D;
+	protected int width = 0, height = 0;
+	/**
+	 * the landmark distances tightening the heuristic, or null.
+	 */
+	protected Landmarks landmarks;
+	/**
+	 * the index of the destination cell, which the landmark bound is measured to.
+	 */
+	private int destCell;
+
+	/**
+	 * the exact cost to reach a cell from the starting cell.
+	 */
+	protected float[] g;
+	/**
+	 * the index of the parent of a cell, or -1 for the start.
+	 */
+	protected int[] parent;
+	/**
+	 * the search generation a cell was last touched in, other cells are treated as unvisited.
+	 */
+	protected int[] stamp;
+	protected int generation = 0;
+	/**
+	 * the open list of cell indices, a visited cell which isn't open is closed.
+	 */
+	protected IndexedHeap open;
+	/**
+	 * the number of cells expanded by the last search.
+	 */
+	protected int expanded = 0;
+	/**
+	 * the statistics to count into, or null if disabled.
+	 */
+	protected SearchStats stats = null;
+
+	protected final Node probe = new Node(0, 0), probeParent = new Node(0, 0), dest = new Node(0, 0);
+
+	@Override
+	public void setEight(boolean eight) {
+		this.eight = eight;
+	}
+
+	@Override
+	public void setFlags(Flags flags) {
+		this.flags = flags;
+		this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
+		this.costs = flags instanceof CostFlags ? (CostFlags) flags : null;
+	}
+
+	@Override
+	public void setHeuristic(Heuristic heur) {
+		this.heur = heur;
+	}
+
+	@Override
+	public void setDiagonal(double diagonal) {
+		this.diagonal = diagonal;
+	}
+
+	@Override
+	public void setWeight(double weight) {
+		if (weight < 1.0D)
+			throw new IllegalArgumentException("weight must be at least 1");
+		this.weight = weight;
+	}
+
+	@Override
+	public void setTieBreaking(TieBreaking tie) {
+		this.tie = tie;
+	}
+
+	@Override
+	public void setBounds(int width, int height) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if ((long) width * (long) height > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bounds are too large");
+		if (this.width != width || this.height != height) {
+			this.width = width;
+			this.height = height;
+			// reallocated lazily on the next search
+			stamp = null;
+		}
+	}
+
+	@Override
+	public List<Locatable> findPath(final Locatable start, final Locatable end) {
+		if (!setup(start, end))
+			return null;
+		try {
+			final int target = search(start.getY() * width + start.getX(), end.getY() * width + end.getX());
+			return target >= 0 ? resolve(target) : null;
+		} finally {
+			open.clear();
+		}
+	}
+
+	/**
+	 * Sets the landmark distances, the heuristic becomes the larger of the plain heuristic and the landmark bound.<br>
+	 * Algorithms whose heuristic isn't a grid distance to the destination override this method to ignore the landmarks.
+	 * @param landmarks the landmarks, or null for the plain heuristic.
+	 */
+	void setLandmarks(final Landmarks landmarks) {
+		this.landmarks = landmarks;
+	}
+
+	@Override
+	public int getExpanded() {
+		return expanded;
+	}
+
+	@Override
+	public void setStatistics(final SearchStats stats) {
+		this.stats = stats;
+	}
+
+	/**
+	 * Validates the settings and locations of a search, and prepares the arrays for it.
+	 * @return whether the search can begin, false if a location is out of bounds or the destination is blocked.
+	 */
+	protected final boolean setup(final Locatable start, final Locatable end) {
+		if ((width <= 0 || height <= 0) && grid != null)
+			setBounds(grid.getWidth(), grid.getHeight());
+		if (width <= 0 || height <= 0)
+			throw new IllegalStateException("grid bounds are not set");
+		if (heur == null)
+			this.heur = Heuristic.MANHATTAN; // recommended
+		expanded = 0;
+		if (!inBounds(start.getX(), start.getY()) || !inBounds(end.getX(), end.getY()))
+			return false;
+		if (landmarks != null && (landmarks.getWidth() != width || landmarks.getHeight() != height ||
+				landmarks.isEight() != eight || landmarks.getDiagonal() != diagonal))
+			throw new IllegalStateException("landmarks don't match the grid settings");
+		dest.set(end.getX(), end.getY());
+		destCell = end.getY() * width + end.getX();
+		if (blocked(end.getX(), end.getY(), -1, -1)) // ensure the destination isn't blocked already
+			return false;
+		prepare();
+		return true;
+	}
+
+	/**
+	 * Searches from the source cell to the goal cell.<br>
+	 * The arrays are allocated and every cell is unvisited when this is called.
+	 * @param source the index of the starting cell.
+	 * @param goal the index of the destination cell.
+	 * @return the index of the reached cell to resolve the path from, or -1 if there was no path.
+	 */
+	protected abstract int search(final int source, final int goal);
+
+	/**
+	 * Allocates the per-cell arrays, subclasses with extra arrays should override and call through.
+	 * @param cells the number of cells in the grid.
+	 */
+	protected void allocate(final int cells) {
+		g = new float[cells];
+		parent = new int[cells];
+		stamp = new int[cells];
+		open = new IndexedHeap(cells);
+	}
+
+	protected final boolean inBounds(final int x, final int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Tests a cell, directly if the flags are a bit grid, a negative parent X position means no parent.
+	 */
+	protected final boolean blocked(final int x, final int y, final int px, final int py) {
+		if (stats != null)
+			stats.blocked++;
+		if (grid != null)
+			return grid.blocked(x, y);
+		return flags != null && flags.blocked(probe.set(x, y), px < 0 ? null : probeParent.set(px, py));
+	}
+
+	/**
+	 * Returns the cost of moving into a cell from an adjacent parent cell, weighed by the terrain if the flags are {@link CostFlags}.
+	 */
+	protected final float step(final int x, final int y, final int px, final int py) {
+		final float step = x != px && y != py ? (float) diagonal : 1.0F;
+		return costs != null ? step * costs.getCost(probe.set(x, y), probeParent.set(px, py)) : step;
+	}
+
+	/**
+	 * Returns the weighted heuristic distance from a cell to the destination.
+	 */
+	protected final float heuristic(final int x, final int y) {
+		if (landmarks != null)
+			return (float) (weight * distance(x, y));
+		return (float) (weight * heur.distance(probe.set(x, y), dest, diagonal));
+	}
+
+	/**
+	 * Returns the heuristic distance from a cell to the destination, without the weight.
+	 */
+	protected final float distance(final int x, final int y) {
+		final float h = (float) heur.distance(probe.set(x, y), dest, diagonal);
+		return landmarks != null ? Math.max(h, landmarks.bound(y * width + x, destCell)) : h;
+	}
+
+	protected final boolean visited(final int cell) {
+		return stamp[cell] == generation;
+	}
+
+	/**
+	 * Records a cell as reached through the given parent with the given cost and opens it, or updates it if already open.
+	 */
+	protected final void relax(final int cell, final int from, final float cost, final double f) {
+		if (stats != null)
+			stats.reached(visited(cell), open.contains(cell) ? open.size() : open.size() + 1);
+		g[cell] = cost;
+		parent[cell] = from;
+		stamp[cell] = generation;
+		if (tie != null)
+			open.offerPacked(cell, tie.key(f, cost, cell));
+		else
+			open.offer(cell, f);
+	}
+
+	/**
+	 * Returns the lowest <tt>f</tt> of the open list, which was filled by {@link #relax(int, int, float, double)}.
+	 */
+	protected final double peekF() {
+		if (tie != null)
+			return open.isEmpty() ? Double.POSITIVE_INFINITY : TieBreaking.f(open.peekPacked());
+		return open.peekKey();
+	}
+
+	/**
+	 * Returns the cost of moving between two cells along a straight or diagonal line.
+	 */
+	protected final float cost(final int from, final int to) {
+		final int dx = Math.abs(to % width - from % width), dy = Math.abs(to / width - from / width);
+		final int diag = Math.min(dx, dy);
+		return (float) ((dx + dy - (diag << 1)) + diag * diagonal);
+	}
+
+	/**
+	 * Allocates the search arrays if needed and advances the generation,
+	 * which invalidates the state of every cell in O(1).
+	 */
+	protected final void prepare() {
+		if (stamp == null) {
+			allocate(width * height);
+			generation = 0;
+		}
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Resolves the target by tracing the parent tree backward,
+	 * filling in the cells of straight and diagonal segments between non-adjacent cells.
+	 */
+	protected List<Locatable> resolve(int target) {
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		int x = target % width, y = target / width;
+		path.add(new Node(x, y));
+		while ((target = parent[target]) != -1) {
+			final int px = target % width, py = target / width;
+			final int dx = Integer.signum(px - x), dy = Integer.signum(py - y);
+			while (x != px || y != py) {
+				x += x != px ? dx : 0;
+				y += y != py ? dy : 0;
+				path.add(new Node(x, y));
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,533 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.algorithms.pathfinding.Pathfinding.CostFlags;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Hierarchical pathfinding (HPA*), first described by Botea, M&uuml;ller and Schaeffer in 2004.<br>
+ * The grid is partitioned into square clusters, entrances are placed along the open stretches of the borders
+ * between adjacent clusters, and the costs between the entrances of each cluster are precomputed with a regular
+ * pathfinding algorithm restricted to that cluster. A query searches the small abstract graph of entrances first,
+ * then refines only the chosen corridor, one cluster at a time.<br>
+ * Paths are near-optimal and costs are assumed to be symmetric. Searching eight way, borders can also be crossed
+ * diagonally, including through the corners where four clusters meet, wherever two straight moves can't make the crossing.<br>
+ * When the flags change, {@link #invalidate(Rectangle)} rebuilds only the clusters around the changed region.<br>
+ * This class is NOT thread-safe, searches are serialized on this instance.
+ * @author Odell
+ */
+public class HierarchicalPathfinding implements AlgorithmSettings {
+
+	/**
+	 * Open border stretches at least this long get an entrance at both ends instead of one in the middle.
+	 */
+	private static final int WIDE_ENTRANCE = 6;
+
+	protected final Algorithm algorithm;
+	private final Pathfinding local;
+	private ClusterFlags clusterFlags;
+	private final int clusterSize;
+
+	private Flags flags;
+	private Heuristic heur;
+	private double diagonal = 1.0D;
+	private boolean eight = false;
+	private int width, height, columns, rows;
+
+	/**
+	 * the entrances of each cluster.
+	 */
+	private final ArrayList<ArrayList<Entrance>> clusters;
+	private final ArrayList<Entrance> entrances;
+	private final BitSet dirty;
+	private boolean rebuild = true;
+
+	/**
+	 * Creates a hierarchical pathfinding provider.<br>
+	 * The algorithm must accept any flags, honor four and eight way movement and terrain costs,
+	 * and return every cell of its paths, which ASTAR, ASTAR_GRID, BIDIRECTIONAL_ASTAR, ARA_STAR and DIAL do.
+	 * The jump point searches fix their own connectivity, the any-angle searches return waypoints
+	 * and D* Lite keeps its search between calls, so they're rejected.
+	 * @param alg the algorithm used for the costs within a cluster and for refinement.
+	 * @param flags the collision flags.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param clusterSize the width and height of a cluster.
+	 * @throws IllegalArgumentException if the algorithm can't be used within clusters.
+	 */
+	public HierarchicalPathfinding(final Algorithm alg, final Flags flags, final int width, final int height, final int clusterSize) {
+		if (alg == null)
+			throw new IllegalArgumentException("algorithm can't be null");
+		switch (alg) {
+		case ASTAR:
+		case ASTAR_GRID:
+		case BIDIRECTIONAL_ASTAR:
+		case ARA_STAR:
+		case DIAL:
+			break;
+		default:
+			throw new IllegalArgumentException(alg + " can't be used within clusters");
+		}
+		if (clusterSize < 2)
+			throw new IllegalArgumentException("cluster size must be at least 2");
+		this.algorithm = alg;
+		this.clusterSize = clusterSize;
+		this.clusterFlags = flags instanceof CostFlags ? new ClusterCostFlags() : new ClusterFlags();
+		this.local = new Pathfinding(alg, clusterFlags);
+		this.clusters = new ArrayList<ArrayList<Entrance>>();
+		this.entrances = new ArrayList<Entrance>();
+		this.dirty = new BitSet();
+		this.flags = flags;
+		setBounds(width, height);
+	}
+
+	/**
+	 * Returns the algorithm used within clusters.
+	 * @return the algorithm used within clusters.
+	 */
+	public final Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public synchronized void setEight(boolean eight) {
+		this.eight = eight;
+		local.setEight(eight);
+		rebuild = true;
+	}
+
+	@Override
+	public synchronized void setFlags(Flags flags) {
+		this.flags = flags;
+		clusterFlags = flags instanceof CostFlags ? new ClusterCostFlags() : new ClusterFlags();
+		local.setFlags(clusterFlags);
+		rebuild = true;
+	}
+
+	@Override
+	public synchronized void setHeuristic(Heuristic heur) {
+		this.heur = heur;
+		local.setHeuristic(heur);
+	}
+
+	@Override
+	public synchronized void setDiagonal(double diagonal) {
+		this.diagonal = diagonal;
+		local.setDiagonal(diagonal);
+		rebuild = true;
+	}
+
+	@Override
+	public synchronized void setWeight(double weight) {
+		local.setWeight(weight);
+	}
+
+	@Override
+	public synchronized void setTieBreaking(TieBreaking tie) {
+		local.setTieBreaking(tie);
+	}
+
+	@Override
+	public synchronized void setBounds(int width, int height) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		this.width = width;
+		this.height = height;
+		this.columns = (width + clusterSize - 1) / clusterSize;
+		this.rows = (height + clusterSize - 1) / clusterSize;
+		local.setBounds(width, height);
+		rebuild = true;
+	}
+
+	/**
+	 * Notifies this pathfinder that the flags within the region have changed.<br>
+	 * The clusters overlapping the region and the borders around them are rebuilt on the next search.
+	 * @param region the changed region.
+	 */
+	public synchronized void invalidate(final Rectangle region) {
+		// expanded by a cell, a change on a border also affects the cluster across it
+		final int minX = Math.max(0, (region.x - 1) / clusterSize), minY = Math.max(0, (region.y - 1) / clusterSize);
+		final int maxX = Math.min(columns - 1, (region.x + region.width) / clusterSize);
+		final int maxY = Math.min(rows - 1, (region.y + region.height) / clusterSize);
+		for (int cy = minY; cy <= maxY; cy++) {
+			for (int cx = minX; cx <= maxX; cx++)
+				dirty.set(cy * columns + cx);
+		}
+	}
+
+	/**
+	 * Finds a path from the start to the end.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return a valid path to the destination, otherwise null if there was no path.
+	 */
+	public synchronized List<Locatable> findPath(final Locatable start, final Locatable end) {
+		if (!inBounds(start.getX(), start.getY()) || !inBounds(end.getX(), end.getY()))
+			return null;
+		if (heur == null)
+			heur = Heuristic.MANHATTAN; // recommended
+		refresh();
+		final Entrance source = new Entrance(start.getX(), start.getY(), clusterOf(start.getX(), start.getY()), -1);
+		final Entrance target = new Entrance(end.getX(), end.getY(), clusterOf(end.getX(), end.getY()), -1);
+		source.id = entrances.size();
+		target.id = source.id + 1;
+		// connect the start and end to the entrances of their clusters
+		for (final Entrance e : clusters.get(source.cluster)) {
+			final double cost = localCost(source, e, source.cluster);
+			if (cost >= 0)
+				source.connect(e, cost);
+		}
+		final double[] toTarget = new double[entrances.size()];
+		Arrays.fill(toTarget, -1.0D);
+		for (final Entrance e : clusters.get(target.cluster))
+			toTarget[e.id] = localCost(e, target, target.cluster);
+		if (source.cluster == target.cluster) {
+			final double cost = localCost(source, target, source.cluster);
+			if (cost >= 0)
+				source.connect(target, cost);
+		}
+		final List<Entrance> corridor = searchAbstract(source, target, toTarget);
+		return corridor != null ? refine(corridor) : null;
+	}
+
+	/**
+	 * A* over the abstract graph of entrances.
+	 * @return the entrances from the source to the target, or null if there was no path.
+	 */
+	private List<Entrance> searchAbstract(final Entrance source, final Entrance target, final double[] toTarget) {
+		final int n = entrances.size() + 2;
+		final double[] g = new double[n];
+		final int[] parent = new int[n];
+		final boolean[] seen = new boolean[n], closed = new boolean[n];
+		final IndexedHeap open = new IndexedHeap(n);
+		g[source.id] = 0.0D;
+		parent[source.id] = -1;
+		seen[source.id] = true;
+		open.offer(source.id, heur.distance(source, target, diagonal));
+		int curr;
+		while ((curr = open.poll()) >= 0) {
+			if (curr == target.id) {
+				final ArrayList<Entrance> corridor = new ArrayList<Entrance>();
+				for (int id = curr; id >= 0; id = parent[id])
+					corridor.add(id == source.id ? source : id == target.id ? target : entrances.get(id));
+				Collections.reverse(corridor);
+				return corridor;
+			}
+			closed[curr] = true;
+			final Entrance node = curr == source.id ? source : entrances.get(curr);
+			for (int i = 0; i < node.edges.size(); i++)
+				relax(node.edges.get(i), g[curr] + node.costs[i], curr, target, g, parent, seen, closed, open);
+			if (node.peer != null) // border crossing
+				relax(node.peer, g[curr] + node.crossing, curr, target, g, parent, seen, closed, open);
+			if (curr != source.id && toTarget.length > curr && toTarget[curr] >= 0)
+				relax(target, g[curr] + toTarget[curr], curr, target, g, parent, seen, closed, open);
+		}
+		return null;
+	}
+
+	private void relax(final Entrance e, final double cost, final int from, final Entrance target,
+			final double[] g, final int[] parent, final boolean[] seen, final boolean[] closed, final IndexedHeap open) {
+		if (closed[e.id] || (seen[e.id] && cost >= g[e.id]))
+			return;
+		seen[e.id] = true;
+		g[e.id] = cost;
+		parent[e.id] = from;
+		open.offer(e.id, cost + heur.distance(e, target, diagonal));
+	}
+
+	/**
+	 * Refines the abstract corridor into a full path, searching one cluster at a time.
+	 */
+	private List<Locatable> refine(final List<Entrance> corridor) {
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		path.add(new Node(corridor.get(0)));
+		for (int i = 1; i < corridor.size(); i++) {
+			final Entrance a = corridor.get(i - 1), b = corridor.get(i);
+			if (a.cluster != b.cluster) { // border crossing
+				path.add(new Node(b));
+				continue;
+			}
+			final List<Locatable> segment = localPath(a, b, a.cluster);
+			if (segment == null)
+				return null;
+			for (int j = 1; j < segment.size(); j++)
+				path.add(segment.get(j));
+		}
+		return path;
+	}
+
+	/**
+	 * Brings the abstract graph up to date, rebuilding everything or only the invalidated clusters.
+	 */
+	private void refresh() {
+		if (rebuild) {
+			clusters.clear();
+			for (int i = 0, count = columns * rows; i < count; i++)
+				clusters.add(new ArrayList<Entrance>());
+			for (int c = 0; c < clusters.size(); c++) {
+				scanBorder(c, true);
+				scanBorder(c, false);
+			}
+			for (int c = 0; c < clusters.size(); c++)
+				connect(c);
+			rebuild = false;
+			dirty.clear();
+		} else if (!dirty.isEmpty()) {
+			// the borders of a dirty cluster are rescanned, which changes the entrances of the clusters across them
+			final BitSet touched = new BitSet();
+			for (int c = dirty.nextSetBit(0); c >= 0; c = dirty.nextSetBit(c + 1)) {
+				final int cx = c % columns, cy = c / columns;
+				rescanBorder(c, true, touched);
+				rescanBorder(c, false, touched);
+				if (cx > 0)
+					rescanBorder(c - 1, true, touched);
+				if (cy > 0)
+					rescanBorder(c - columns, false, touched);
+			}
+			touched.or(dirty);
+			for (int c = touched.nextSetBit(0); c >= 0; c = touched.nextSetBit(c + 1))
+				connect(c);
+			dirty.clear();
+		}
+		entrances.clear();
+		for (final ArrayList<Entrance> cluster : clusters) {
+			for (final Entrance e : cluster) {
+				e.id = entrances.size();
+				entrances.add(e);
+			}
+		}
+	}
+
+	private void rescanBorder(final int c, final boolean east, final BitSet touched) {
+		final int border = (c << 1) | (east ? 0 : 1);
+		final int cy = c / columns;
+		if (east ? c % columns == columns - 1 : cy == rows - 1)
+			return;
+		// an east border also owns the diagonal crossings through its corners, into the clusters above and below the next one
+		final int[] others = east ? new int[] { c, c + 1, cy > 0 ? c + 1 - columns : -1, cy < rows - 1 ? c + 1 + columns : -1 }
+				: new int[] { c, c + columns };
+		for (final int other : others) {
+			if (other >= 0) {
+				removeBorder(clusters.get(other), border);
+				touched.set(other);
+			}
+		}
+		scanBorder(c, east);
+	}
+
+	private static void removeBorder(final ArrayList<Entrance> cluster, final int border) {
+		for (int i = cluster.size() - 1; i >= 0; i--) {
+			if (cluster.get(i).border == border)
+				cluster.remove(i);
+		}
+	}
+
+	/**
+	 * Places entrances along the east or south border of a cluster,
+	 * one in the middle of each short open stretch or one at each end of a long one.
+	 * Searching eight way, every diagonal crossing which straight moves can't make gets an entrance of its own,
+	 * an east border also scans the crossings past its ends.
+	 */
+	private void scanBorder(final int c, final boolean east) {
+		final int cx = c % columns, cy = c / columns;
+		if (east ? cx == columns - 1 : cy == rows - 1)
+			return;
+		final int border = (c << 1) | (east ? 0 : 1);
+		final int other = east ? c + 1 : c + columns;
+		final int length = east ? Math.min(clusterSize, height - cy * clusterSize) : Math.min(clusterSize, width - cx * clusterSize);
+		// the first cell of the border on this side, and the step along it
+		final int x0 = east ? (cx + 1) * clusterSize - 1 : cx * clusterSize, y0 = east ? cy * clusterSize : (cy + 1) * clusterSize - 1;
+		final int sx = east ? 0 : 1, sy = east ? 1 : 0;
+		final int ax = east ? 1 : 0, ay = east ? 0 : 1; // across the border
+		int run = -1;
+		for (int i = 0; i <= length; i++) {
+			final int x = x0 + sx * i, y = y0 + sy * i;
+			final boolean open = i < length && crossable(x, y, x + ax, y + ay);
+			if (open && run < 0) {
+				run = i;
+			} else if (!open && run >= 0) {
+				final int last = i - 1;
+				if (i - run < WIDE_ENTRANCE) {
+					addEntrance(c, other, border, x0 + sx * ((run + last) >> 1), y0 + sy * ((run + last) >> 1), ax, ay);
+				} else {
+					addEntrance(c, other, border, x0 + sx * run, y0 + sy * run, ax, ay);
+					addEntrance(c, other, border, x0 + sx * last, y0 + sy * last, ax, ay);
+				}
+				run = -1;
+			}
+		}
+		if (!eight)
+			return;
+		final int first = east && cy > 0 ? -1 : 0, end = east && cy < rows - 1 ? length : length - 1;
+		for (int i = 0; i < length; i++) {
+			final int x = x0 + sx * i, y = y0 + sy * i;
+			for (int j = i - 1; j <= i + 1; j += 2) {
+				if (j < first || j > end)
+					continue;
+				final int x2 = x0 + sx * j + ax, y2 = y0 + sy * j + ay;
+				if (!crossable(x, y, x2, y2))
+					continue;
+				// two straight moves, one of them across the border, are covered by a straight entrance
+				if ((crossable(x, y, x2, y) && crossable(x2, y, x2, y2)) || (crossable(x, y, x, y2) && crossable(x, y2, x2, y2)))
+					continue;
+				addEntrance(c, clusterOf(x2, y2), border, x, y, x2 - x, y2 - y);
+			}
+		}
+	}
+
+	private void addEntrance(final int c, final int other, final int border, final int x, final int y, final int ax, final int ay) {
+		final Entrance a = new Entrance(x, y, c, border), b = new Entrance(x + ax, y + ay, other, border);
+		a.peer = b;
+		b.peer = a;
+		a.crossing = b.crossing = stepCost(a, b);
+		clusters.get(c).add(a);
+		clusters.get(other).add(b);
+	}
+
+	private boolean crossable(final int x, final int y, final int x2, final int y2) {
+		if (flags == null)
+			return true;
+		final Node from = new Node(x, y), to = new Node(x2, y2);
+		return !flags.blocked(from, null) && !flags.blocked(to, from) && !flags.blocked(from, to);
+	}
+
+	/**
+	 * Computes the costs between every pair of entrances of a cluster.
+	 */
+	private void connect(final int c) {
+		final ArrayList<Entrance> cluster = clusters.get(c);
+		for (final Entrance e : cluster)
+			e.disconnect();
+		for (int i = 0; i < cluster.size(); i++) {
+			final Entrance a = cluster.get(i);
+			for (int j = i + 1; j < cluster.size(); j++) {
+				final Entrance b = cluster.get(j);
+				final double cost = localCost(a, b, c);
+				if (cost >= 0) {
+					a.connect(b, cost);
+					b.connect(a, cost);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the cost of the path between two locations within a cluster, or -1 if there was no path.
+	 */
+	private double localCost(final Locatable a, final Locatable b, final int c) {
+		final List<Locatable> path = localPath(a, b, c);
+		if (path == null)
+			return -1.0D;
+		double cost = 0.0D;
+		for (int i = 1; i < path.size(); i++)
+			cost += stepCost(path.get(i - 1), path.get(i));
+		return cost;
+	}
+
+	/**
+	 * Returns the cost of moving between adjacent locations, weighed by the terrain if the flags are {@link CostFlags}.
+	 */
+	private double stepCost(final Locatable from, final Locatable to) {
+		final double step = PNode.isDiagonal(from, to) ? diagonal : 1.0D;
+		return flags instanceof CostFlags ? step * ((CostFlags) flags).getCost(to, from) : step;
+	}
+
+	private List<Locatable> localPath(final Locatable a, final Locatable b, final int c) {
+		final int cx = c % columns, cy = c / columns;
+		clusterFlags.restrict(cx * clusterSize, cy * clusterSize, Math.min(width, (cx + 1) * clusterSize), Math.min(height, (cy + 1) * clusterSize));
+		return local.findPath(a, b);
+	}
+
+	private int clusterOf(final int x, final int y) {
+		return (y / clusterSize) * columns + x / clusterSize;
+	}
+
+	private boolean inBounds(final int x, final int y) {
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Restricts the collision flags to the bounds of one cluster.
+	 * @author Odell
+	 */
+	private class ClusterFlags implements Flags {
+
+		private int minX, minY, maxX, maxY;
+
+		private void restrict(final int minX, final int minY, final int maxX, final int maxY) {
+			this.minX = minX;
+			this.minY = minY;
+			this.maxX = maxX;
+			this.maxY = maxY;
+		}
+
+		@Override
+		public boolean blocked(final Locatable loc, final Locatable parent) {
+			final int x = loc.getX(), y = loc.getY();
+			if (x < minX || y < minY || x >= maxX || y >= maxY)
+				return true;
+			return flags != null && flags.blocked(loc, parent);
+		}
+
+	}
+
+	/**
+	 * Restricts terrain weighing flags to the bounds of one cluster, so the local searches weigh the terrain as well.
+	 * @author Odell
+	 */
+	private class ClusterCostFlags extends ClusterFlags implements CostFlags {
+
+		@Override
+		public int getCost(final Locatable loc, final Locatable parent) {
+			return ((CostFlags) flags).getCost(loc, parent);
+		}
+
+	}
+
+	/**
+	 * A node of the abstract graph, one side of a border crossing.
+	 * @author Odell
+	 */
+	private static class Entrance extends Node {
+
+		private final int cluster, border;
+		private Entrance peer = null;
+		/**
+		 * the cost of the move to the peer across the border.
+		 */
+		private double crossing = 1.0D;
+		private final ArrayList<Entrance> edges = new ArrayList<Entrance>();
+		private double[] costs = new double[4];
+		private int id;
+
+		private Entrance(final int x, final int y, final int cluster, final int border) {
+			super(x, y);
+			this.cluster = cluster;
+			this.border = border;
+		}
+
+		private void connect(final Entrance e, final double cost) {
+			if (edges.size() == costs.length)
+				costs = Arrays.copyOf(costs, costs.length << 1);
+			costs[edges.size()] = cost;
+			edges.add(e);
+		}
+
+		private void disconnect() {
+			edges.clear();
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,259 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of integer node handles ordered by a long key.<br>
+ * The heap slot of every handle is tracked, which allows O(1) membership tests
+ * and O(log n) key updates (decrease-key) without searching the heap.<br>
+ * Double keys are stored as longs with the same order, so every comparison is a single long comparison.
+ * Packed keys, which carry their own tie-breaking in the low bits, are stored as given.
+ * A heap should only be used with one kind of key at a time.<br>
+ * Handles must be non-negative, the handle range grows as needed.
+ * @author Odell
+ */
+class IndexedHeap {
+
+	private int[] heap;
+	private long[] keys;
+	/**
+	 * the heap slot of each handle, or -1 if the handle isn't in the heap.
+	 */
+	private int[] slot;
+	private int size = 0;
+
+	/**
+	 * Creates an empty heap with a small initial handle range.
+	 */
+	IndexedHeap() {
+		this(64);
+	}
+
+	/**
+	 * Creates an empty heap for handles in [0, handles).
+	 * @param handles the initial handle range.
+	 */
+	IndexedHeap(final int handles) {
+		heap = new int[64];
+		keys = new long[64];
+		slot = new int[Math.max(handles, 1)];
+		Arrays.fill(slot, -1);
+	}
+
+	/**
+	 * @return how many handles are currently in this heap.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return whether this heap is empty.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Determines whether the handle is currently in this heap, in O(1).
+	 * @param handle the handle to test.
+	 * @return <tt>true</tt> if the handle is in this heap, otherwise <tt>false</tt>.
+	 */
+	public boolean contains(final int handle) {
+		return handle < slot.length && slot[handle] >= 0;
+	}
+
+	/**
+	 * Returns the key of a handle in this heap.
+	 * @param handle the handle to look up.
+	 * @return the key of the handle.
+	 * @throws IllegalArgumentException if the handle isn't in this heap.
+	 */
+	public double getKey(final int handle) {
+		if (!contains(handle))
+			throw new IllegalArgumentException("handle " + handle + " isn't in the heap");
+		return value(keys[slot[handle]]);
+	}
+
+	/**
+	 * Inserts the handle with the given key, or updates its key if it's already in this heap.
+	 * @param handle the handle to insert.
+	 * @param key the key of the handle.
+	 */
+	public void offer(final int handle, final double key) {
+		offerPacked(handle, order(key));
+	}
+
+	/**
+	 * Inserts the handle with the given packed key, or updates its key if it's already in this heap.
+	 * @param handle the handle to insert.
+	 * @param key the packed key of the handle.
+	 */
+	public void offerPacked(final int handle, final long key) {
+		if (contains(handle)) {
+			updatePacked(handle, key);
+			return;
+		}
+		if (handle >= slot.length)
+			ensureCapacity(handle + 1);
+		if (size == heap.length) {
+			heap = Arrays.copyOf(heap, size << 1);
+			keys = Arrays.copyOf(keys, size << 1);
+		}
+		siftUp(size++, handle, key);
+	}
+
+	/**
+	 * Changes the key of a handle in this heap, moving it up or down as needed.
+	 * @param handle the handle to update.
+	 * @param key the new key of the handle.
+	 * @throws IllegalArgumentException if the handle isn't in this heap.
+	 */
+	public void update(final int handle, final double key) {
+		updatePacked(handle, order(key));
+	}
+
+	/**
+	 * Changes the packed key of a handle in this heap, moving it up or down as needed.
+	 * @param handle the handle to update.
+	 * @param key the new packed key of the handle.
+	 * @throws IllegalArgumentException if the handle isn't in this heap.
+	 */
+	public void updatePacked(final int handle, final long key) {
+		if (!contains(handle))
+			throw new IllegalArgumentException("handle " + handle + " isn't in the heap");
+		final int i = slot[handle];
+		if (key < keys[i]) {
+			siftUp(i, handle, key);
+		} else {
+			siftDown(i, handle, key);
+		}
+	}
+
+	/**
+	 * @return the handle with the lowest key, or -1 if this heap is empty.
+	 */
+	public int peek() {
+		return size > 0 ? heap[0] : -1;
+	}
+
+	/**
+	 * @return the lowest key in this heap, or positive infinity if this heap is empty.
+	 */
+	public double peekKey() {
+		return size > 0 ? value(keys[0]) : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the lowest packed key in this heap, or {@link Long#MAX_VALUE} if this heap is empty.
+	 */
+	public long peekPacked() {
+		return size > 0 ? keys[0] : Long.MAX_VALUE;
+	}
+
+	/**
+	 * Removes the handle with the lowest key.
+	 * @return the removed handle, or -1 if this heap is empty.
+	 */
+	public int poll() {
+		if (size == 0)
+			return -1;
+		final int top = heap[0];
+		slot[top] = -1;
+		if (--size > 0)
+			siftDown(0, heap[size], keys[size]);
+		return top;
+	}
+
+	/**
+	 * Removes the handle from this heap.
+	 * @param handle the handle to remove.
+	 * @return <tt>true</tt> if the handle was in this heap, otherwise <tt>false</tt>.
+	 */
+	public boolean remove(final int handle) {
+		if (!contains(handle))
+			return false;
+		final int i = slot[handle];
+		slot[handle] = -1;
+		if (i < --size) {
+			final int last = heap[size];
+			final long key = keys[size];
+			if (key < keys[i]) {
+				siftUp(i, last, key);
+			} else {
+				siftDown(i, last, key);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Removes every handle from this heap, in O(size).
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++)
+			slot[heap[i]] = -1;
+		size = 0;
+	}
+
+	/**
+	 * Ensures handles in [0, handles) can be stored without growing.
+	 * @param handles the handle range.
+	 */
+	public void ensureCapacity(final int handles) {
+		if (handles > slot.length) {
+			final int old = slot.length;
+			slot = Arrays.copyOf(slot, Math.max(handles, old + (old >> 1)));
+			Arrays.fill(slot, old, slot.length, -1);
+		}
+	}
+
+	/**
+	 * Maps a double to a long with the same order, negative doubles have their magnitude bits flipped.
+	 */
+	static long order(final double key) {
+		final long bits = Double.doubleToLongBits(key);
+		return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+	}
+
+	/**
+	 * Maps a long back to the double it was ordered from, the inverse of {@link #order(double)}.
+	 */
+	static double value(final long key) {
+		return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+	}
+
+	private void siftUp(int i, final int handle, final long key) {
+		while (i > 0) {
+			final int p = (i - 1) >>> 1;
+			if (keys[p] <= key)
+				break;
+			heap[i] = heap[p];
+			keys[i] = keys[p];
+			slot[heap[i]] = i;
+			i = p;
+		}
+		heap[i] = handle;
+		keys[i] = key;
+		slot[handle] = i;
+	}
+
+	private void siftDown(int i, final int handle, final long key) {
+		final int half = size >>> 1;
+		while (i < half) {
+			int c = (i << 1) + 1;
+			if (c + 1 < size && keys[c + 1] < keys[c])
+				c++;
+			if (key <= keys[c])
+				break;
+			heap[i] = heap[c];
+			keys[i] = keys[c];
+			slot[heap[i]] = i;
+			i = c;
+		}
+		heap[i] = handle;
+		keys[i] = key;
+		slot[handle] = i;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+package com.overload.algorithms.pathfinding;
+
+import com.overload.algorithms.BitGrid;
+
+/**
+ * Jump point search on a four way grid (JPS4), with the canonical ordering described by Baum in 2025.<br>
+ * Of all the symmetric shortest paths only the canonical one, which moves vertically before it moves horizontally,
+ * is searched. Horizontal jumps stop where a wall behind ends and a vertical move is forced,
+ * vertical jumps scan both horizontal directions at every cell and stop where either scan finds a jump point.
+ * On open maps this expands orders of magnitude fewer cells than A*, which expands every permutation of the same moves.<br>
+ * Jumps are iterative, so long corridors can't overflow the stack.
+ * When the flags are a {@link BitGrid} rows are scanned 64 cells per step, as in {@link JPSBitscanImpl},
+ * which is recommended since every vertical jump scans the rows it crosses.<br>
+ * This algorithm only works four way and ignores terrain costs, the flags must not depend on the parent.
+ * @see JPSBitscanImpl
+ * @author Odell
+ */
+class JPS4Impl extends GridDefinition {
+
+	private int goal;
+
+	/**
+	 * Ignored, this algorithm only works four way.
+	 */
+	@Override
+	public void setEight(final boolean eight) {
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		this.goal = goal;
+		relax(source, -1, 0.0F, heuristic(source % width, source / width));
+		int curr;
+		while ((curr = open.poll()) >= 0) {
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int x = curr % width, y = curr / width;
+			final int p = parent[curr];
+			if (p < 0) { // no parent, search every direction
+				for (int d = 0; d < 4; d++)
+					successor(curr, x, y, GridAStarImpl.DX[d], GridAStarImpl.DY[d]);
+				continue;
+			}
+			// normalize
+			final int dx = Integer.signum(x - p % width), dy = Integer.signum(y - p / width);
+			if (dx == 0) { // vertical, both horizontal neighbors are natural
+				successor(curr, x, y, 0, dy);
+				successor(curr, x, y, -1, 0);
+				successor(curr, x, y, 1, 0);
+			} else { // horizontal
+				successor(curr, x, y, dx, 0);
+				// forced neighbor checks
+				if (forced(x, y, dx, -1))
+					successor(curr, x, y, 0, -1);
+				if (forced(x, y, dx, 1))
+					successor(curr, x, y, 0, 1);
+			}
+		}
+		return -1;
+	}
+
+	private void successor(final int curr, final int x, final int y, final int dx, final int dy) {
+		final int jumpPoint = dy == 0 ? jumpHorizontal(x, y, dx) : jumpVertical(x, y, dy);
+		if (jumpPoint < 0)
+			return;
+		final boolean seen = visited(jumpPoint);
+		if (seen && !open.contains(jumpPoint)) // closed
+			return;
+		final float ng = g[curr] + cost(curr, jumpPoint);
+		if (seen && ng >= g[jumpPoint])
+			return;
+		relax(jumpPoint, curr, ng, ng + heuristic(jumpPoint % width, jumpPoint / width));
+	}
+
+	/**
+	 * Finds the next jump point moving horizontally from a cell.
+	 * @return the index of the jump point, or -1 if a wall was reached first.
+	 */
+	private int jumpHorizontal(int x, final int y, final int dx) {
+		if (grid != null) {
+			final int jx = dx > 0 ? scanForward(x, y) : scanBackward(x, y);
+			return jx < 0 ? -1 : y * width + jx;
+		}
+		while (true) {
+			final int nx = x + dx;
+			if (!open(nx, y, x, y))
+				return -1;
+			x = nx;
+			final int cell = y * width + x;
+			if (cell == goal || forced(x, y, dx, -1) || forced(x, y, dx, 1))
+				return cell;
+		}
+	}
+
+	/**
+	 * Finds the next jump point moving vertically from a cell,
+	 * which is any cell a horizontal jump point can be reached from.
+	 * @return the index of the jump point, or -1 if a wall was reached first.
+	 */
+	private int jumpVertical(final int x, int y, final int dy) {
+		while (true) {
+			final int ny = y + dy;
+			if (!open(x, ny, x, y))
+				return -1;
+			y = ny;
+			final int cell = y * width + x;
+			if (cell == goal || jumpHorizontal(x, y, -1) >= 0 || jumpHorizontal(x, y, 1) >= 0)
+				return cell;
+		}
+	}
+
+	/**
+	 * Scans a row of the bit grid toward increasing X, 64 cells per step.<br>
+	 * A cell is a jump point if it's the goal, or if the cell above or below it is open while the previous one isn't.
+	 * @return the X position of the jump point, or -1 if a blocked cell was reached first.
+	 */
+	private int scanForward(final int x, final int y) {
+		final int gx = goal % width, gy = goal / width;
+		for (int p = x + 1; ; p += 64) {
+			final long forced = (grid.getBits(p - 1, y - 1) & ~grid.getBits(p, y - 1)) |
+					(grid.getBits(p - 1, y + 1) & ~grid.getBits(p, y + 1));
+			final int stop = Long.numberOfTrailingZeros(grid.getBits(p, y)); // 64 if the whole word is open
+			int hit = Long.numberOfTrailingZeros(forced);
+			if (gy == y && gx >= p && gx - p < hit)
+				hit = gx - p;
+			if (hit < stop)
+				return p + hit;
+			if (stop < 64)
+				return -1;
+		}
+	}
+
+	/**
+	 * Scans a row of the bit grid toward decreasing X, 64 cells per step.
+	 * @see #scanForward(int, int)
+	 * @return the X position of the jump point, or -1 if a blocked cell was reached first.
+	 */
+	private int scanBackward(final int x, final int y) {
+		final int gx = goal % width, gy = goal / width;
+		for (int p = x - 1; ; p -= 64) {
+			final int s = p - 63; // bit i is the cell s + i
+			final long forced = (grid.getBits(s + 1, y - 1) & ~grid.getBits(s, y - 1)) |
+					(grid.getBits(s + 1, y + 1) & ~grid.getBits(s, y + 1));
+			final int stop = 63 - Long.numberOfLeadingZeros(grid.getBits(s, y)); // -1 if the whole word is open
+			int hit = 63 - Long.numberOfLeadingZeros(forced);
+			if (gy == y && gx <= p && gx - s > hit)
+				hit = gx - s;
+			if (hit > stop)
+				return s + hit;
+			if (stop >= 0)
+				return -1;
+		}
+	}
+
+	/**
+	 * Determines whether moving horizontally into a cell forces a vertical move,
+	 * the vertical neighbor is open but the cell behind it is blocked, so no canonical path reaches it vertically.
+	 */
+	private boolean forced(final int x, final int y, final int dx, final int dy) {
+		return !open(x - dx, y + dy, -1, -1) && open(x, y + dy, -1, -1);
+	}
+
+	private boolean open(final int x, final int y, final int px, final int py) {
+		return inBounds(x, y) && !blocked(x, y, px, py);
+	}
+
+}
\ No newline at end of file
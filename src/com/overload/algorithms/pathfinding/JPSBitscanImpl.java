@@ -0,0 +1,155 @@
+package com.overload.algorithms.pathfinding;
+
+import com.overload.algorithms.BitGrid;
+
+/**
+ * Jump point search on a bit-packed grid, as described by Harabor and Grastien in 2014.<br>
+ * Instead of stepping one cell at a time, straight jumps scan 64 cells of a row per word
+ * with {@link Long#numberOfTrailingZeros(long)}, columns are scanned as rows of the transposed grid.
+ * Diagonal jumps are iterative, so long corridors can't overflow the stack.<br>
+ * This algorithm only works eight way and requires the flags to be a {@link BitGrid}.
+ * @see JPSImpl
+ * @author Odell
+ */
+class JPSBitscanImpl extends GridDefinition {
+
+	private BitGrid columns;
+	private int goalX, goalY;
+
+	@Override
+	protected int search(final int source, final int goal) {
+		if (grid == null)
+			throw new IllegalStateException("collision flags must be a BitGrid");
+		columns = grid.transposed();
+		goalX = goal % width;
+		goalY = goal / width;
+		relax(source, -1, 0.0F, heuristic(source % width, source / width));
+		while (!open.isEmpty()) {
+			final int curr = open.poll();
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int x = curr % width, y = curr / width;
+			final int p = parent[curr];
+			if (p < 0) { // no parent, search every direction
+				for (int d = 0; d < 8; d++)
+					successor(curr, x, y, GridAStarImpl.DX[d], GridAStarImpl.DY[d]);
+				continue;
+			}
+			// normalize
+			final int dx = Integer.signum(x - p % width), dy = Integer.signum(y - p / width);
+			if (dx != 0 && dy != 0) { // diagonal direction
+				successor(curr, x, y, 0, dy);
+				successor(curr, x, y, dx, 0);
+				successor(curr, x, y, dx, dy);
+				// forced neighbor checks
+				if (grid.blocked(x - dx, y))
+					successor(curr, x, y, -dx, dy);
+				if (grid.blocked(x, y - dy))
+					successor(curr, x, y, dx, -dy);
+			} else if (dx != 0) { // horizontal
+				successor(curr, x, y, dx, 0);
+				if (grid.blocked(x, y - 1))
+					successor(curr, x, y, dx, -1);
+				if (grid.blocked(x, y + 1))
+					successor(curr, x, y, dx, 1);
+			} else { // vertical
+				successor(curr, x, y, 0, dy);
+				if (grid.blocked(x - 1, y))
+					successor(curr, x, y, -1, dy);
+				if (grid.blocked(x + 1, y))
+					successor(curr, x, y, 1, dy);
+			}
+		}
+		return -1;
+	}
+
+	private void successor(final int curr, final int x, final int y, final int dx, final int dy) {
+		final int jumpPoint = dx == 0 || dy == 0 ? jumpStraight(x, y, dx, dy) : jumpDiagonal(x, y, dx, dy);
+		if (jumpPoint < 0)
+			return;
+		final boolean seen = visited(jumpPoint);
+		if (seen && !open.contains(jumpPoint)) // closed
+			return;
+		final float ng = g[curr] + cost(curr, jumpPoint);
+		if (seen && ng >= g[jumpPoint])
+			return;
+		relax(jumpPoint, curr, ng, ng + heuristic(jumpPoint % width, jumpPoint / width));
+	}
+
+	/**
+	 * Finds the next jump point in a straight direction.
+	 * @return the index of the jump point, or -1 if a wall was reached first.
+	 */
+	private int jumpStraight(final int x, final int y, final int dx, final int dy) {
+		if (dy == 0) {
+			final int jx = dx > 0 ? scanForward(grid, x, y, goalX, goalY) : scanBackward(grid, x, y, goalX, goalY);
+			return jx < 0 ? -1 : y * width + jx;
+		}
+		final int jy = dy > 0 ? scanForward(columns, y, x, goalY, goalX) : scanBackward(columns, y, x, goalY, goalX);
+		return jy < 0 ? -1 : jy * width + x;
+	}
+
+	/**
+	 * Finds the next jump point in a diagonal direction.
+	 * @return the index of the jump point, or -1 if a wall was reached first.
+	 */
+	private int jumpDiagonal(int x, int y, final int dx, final int dy) {
+		while (true) {
+			x += dx;
+			y += dy;
+			if (grid.blocked(x, y))
+				return -1;
+			if (x == goalX && y == goalY)
+				return y * width + x;
+			// resolve forced neighbors
+			if ((grid.blocked(x - dx, y) && !grid.blocked(x - dx, y + dy)) ||
+				(grid.blocked(x, y - dy) && !grid.blocked(x + dx, y - dy)))
+				return y * width + x;
+			if (jumpStraight(x, y, dx, 0) >= 0 || jumpStraight(x, y, 0, dy) >= 0)
+				return y * width + x;
+		}
+	}
+
+	/**
+	 * Scans a row toward increasing X, 64 cells per step.<br>
+	 * A cell is a jump point if it's the goal, or if the cell above or below it is blocked while the next one isn't.
+	 * @return the X position of the jump point, or -1 if a blocked cell was reached first.
+	 */
+	private static int scanForward(final BitGrid b, final int x, final int y, final int gx, final int gy) {
+		for (int p = x + 1; ; p += 64) {
+			final long forced = (b.getBits(p, y - 1) & ~b.getBits(p + 1, y - 1)) |
+					(b.getBits(p, y + 1) & ~b.getBits(p + 1, y + 1));
+			final int stop = Long.numberOfTrailingZeros(b.getBits(p, y)); // 64 if the whole word is open
+			int hit = Long.numberOfTrailingZeros(forced);
+			if (gy == y && gx >= p && gx - p < hit)
+				hit = gx - p;
+			if (hit < stop)
+				return p + hit;
+			if (stop < 64)
+				return -1;
+		}
+	}
+
+	/**
+	 * Scans a row toward decreasing X, 64 cells per step.
+	 * @see #scanForward(BitGrid, int, int, int, int)
+	 * @return the X position of the jump point, or -1 if a blocked cell was reached first.
+	 */
+	private static int scanBackward(final BitGrid b, final int x, final int y, final int gx, final int gy) {
+		for (int p = x - 1; ; p -= 64) {
+			final int s = p - 63; // bit i is the cell s + i
+			final long forced = (b.getBits(s, y - 1) & ~b.getBits(s - 1, y - 1)) |
+					(b.getBits(s, y + 1) & ~b.getBits(s - 1, y + 1));
+			final int stop = 63 - Long.numberOfLeadingZeros(b.getBits(s, y)); // -1 if the whole word is open
+			int hit = 63 - Long.numberOfLeadingZeros(forced);
+			if (gy == y && gx <= p && gx - s > hit)
+				hit = gx - s;
+			if (hit > stop)
+				return s + hit;
+			if (stop >= 0)
+				return -1;
+		}
+	}
+
+}
\ No newline at end of file
@@ -1,16 +1,16 @@
 package com.overload.algorithms.pathfinding;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
 
+import com.overload.algorithms.BitGrid;
 import com.overload.algorithms.pathfinding.Pathfinding.Flags;
 import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
-import com.overload.impl.DoubleComparator;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
 import com.overload.loc.Locatable;
 import com.overload.loc.Node;
 
@@ -23,24 +23,37 @@ import com.overload.loc.Node;
  */
 class JPSImpl implements AlgorithmDefinition {
 	
-	private final PriorityQueue<JPNode> open;
+	private final IndexedHeap open;
 	private final HashSet<JPNode> closed;
 	private final HashMap<JPNode, JPNode> parentMap;
+	/**
+	 * every node discovered in the current search, indexed by its heap handle.
+	 */
+	private final ArrayList<JPNode> nodes;
+	/**
+	 * maps a location to the instance discovered at it.
+	 */
+	private final HashMap<JPNode, JPNode> instances;
 	private JPNode curr = null;
 	private Node dest = null;
 	
 	private Heuristic heur;
+	private TieBreaking tie;
 	private Flags flags;
-	private double diagonal = 1.0D;
+	private BitGrid grid;
+	private double diagonal = 1.0D, weight = 1.0D;
+	private int expanded = 0;
+	/**
+	 * the statistics to count into, or null if disabled.
+	 */
+	private SearchStats stats = null;
 	
 	JPSImpl() {
-		open = new PriorityQueue<JPNode>(10, new DoubleComparator<JPNode>() {
-			public double compareD(JPNode n1, JPNode n2) {
-				return n1.getF() - n2.getF();
-			}
-		});
+		open = new IndexedHeap();
 		closed = new HashSet<JPNode>();
 		parentMap = new HashMap<JPNode, JPNode>();
+		nodes = new ArrayList<JPNode>();
+		instances = new HashMap<JPNode, JPNode>();
 	}
 	
 	@Override
@@ -49,6 +62,7 @@ class JPSImpl implements AlgorithmDefinition {
 	@Override
 	public void setFlags(Flags flags) {
 		this.flags = flags;
+		this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
 	}
 
 	@Override
@@ -61,40 +75,63 @@ class JPSImpl implements AlgorithmDefinition {
 		this.diagonal = diagonal;
 	}
 
+	@Override
+	public void setWeight(double weight) {
+		if (weight < 1.0D)
+			throw new IllegalArgumentException("weight must be at least 1");
+		this.weight = weight;
+	}
+	
+	@Override
+	public void setTieBreaking(TieBreaking tie) {
+		this.tie = tie;
+	}
+	
+	@Override
+	public void setBounds(int width, int height) {}
+
 	@Override
 	public List<Locatable> findPath(final Locatable start, final Locatable end) {
 		if (heur == null)
 			this.heur = Heuristic.MANHATTAN; // recommended
+		expanded = 0;
 		try {
 			dest = new Node(end);
 			if (walkable(dest, null)) { // ensure the destination isn't blocked already
-				curr = new JPNode(start);
+				curr = register(new JPNode(start));
 				do {
 					if (curr.equals(dest))
 						return resolve(curr);
 					closed.add(curr);
+					expanded++;
 					for (final JPNode neighbor : curr.getNeighbors(true)) {
 						JPNode jumpPoint = jump(neighbor, curr);
 						if (jumpPoint != null) {
 							if (closed.contains(jumpPoint))
 								continue;
-							if (!open.contains(jumpPoint)) {
+							final JPNode instanceNode = instances.get(jumpPoint);
+							if (instanceNode == null) {
 								jumpPoint.setParent(curr);
-								open.offer(jumpPoint);
-							} else if ((curr.getG() + curr.getMoveCost(jumpPoint)) < jumpPoint.getG()) { // G score of node with current node as it's parent
-								final JPNode instanceNode = retrieveInstance(open, jumpPoint);
-								if (instanceNode != null)
-									instanceNode.setParent(curr);
+								push(register(jumpPoint));
+								if (stats != null)
+									stats.reached(false, open.size());
+							} else if ((curr.getG() + curr.getMoveCost(instanceNode)) < instanceNode.getG()) { // G score of node with current node as it's parent
+								instanceNode.setParent(curr);
+								push(instanceNode);
+								if (stats != null)
+									stats.reached(true, open.size());
 							}
 						}
 					}
-				} while ((curr = open.poll()) != null);
+				} while ((curr = poll()) != null);
 			}
 			return null;
 		} finally {
 			open.clear();
 			closed.clear();
 			parentMap.clear();
+			nodes.clear();
+			instances.clear();
 			curr = null;
 			dest = null;
 		}
@@ -145,6 +182,16 @@ class JPSImpl implements AlgorithmDefinition {
 		return jump(node.derive(dx, dy), node);
 	}
 	
+	@Override
+	public int getExpanded() {
+		return expanded;
+	}
+	
+	@Override
+	public void setStatistics(final SearchStats stats) {
+		this.stats = stats;
+	}
+	
 	/**
 	 * Resolves the target by tracing the parent tree backward to form a complete connected path.
 	 * @param target the target to resolve a path
@@ -153,8 +200,8 @@ class JPSImpl implements AlgorithmDefinition {
 	private List<Locatable> resolve(JPNode target) {
 		if (target == null)
 			return null;
-		final LinkedList<Locatable> path = new LinkedList<Locatable>();
-		path.addFirst(new Node(target));
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		path.add(new Node(target));
 		JPNode parent;
 		while ((parent = target.getParent()) != null) {
 			// from target to parent, including parent but not the target
@@ -164,11 +211,12 @@ class JPSImpl implements AlgorithmDefinition {
 			int dx = norm.getX(), dy = norm.getY();
 			for (int i = 0; i < steps; i++) {
 				target.shift(dx, dy);
-				path.addFirst(new Node(target));
+				path.add(new Node(target));
 			}
 			target = parent;
 		}
-		return new ArrayList<Locatable>(path);
+		Collections.reverse(path);
+		return path;
 	}
 	
 	private int getSteps(int x, int y, int px, int py) {
@@ -187,19 +235,37 @@ class JPSImpl implements AlgorithmDefinition {
 	}
 	
 	private boolean walkable(Locatable loc, Locatable parent) {
+		if (stats != null)
+			stats.blocked++;
+		if (grid != null)
+			return !grid.blocked(loc.getX(), loc.getY());
 		return flags == null || !flags.blocked(loc, parent);
 	}
 	
-	private JPNode retrieveInstance(final PriorityQueue<JPNode> pq, final JPNode node) {
-		if (node == null)
-			return null;
-		final Iterator<JPNode> nI = pq.iterator();
-		while (nI.hasNext()) {
-			final JPNode n = nI.next();
-			if (node.equals(n))
-				return n;
-		}
-		return null;
+	/**
+	 * Assigns the next heap handle to a newly discovered node.
+	 * @return the given node.
+	 */
+	private JPNode register(final JPNode node) {
+		node.handle = nodes.size();
+		nodes.add(node);
+		instances.put(node, node);
+		return node;
+	}
+	
+	/**
+	 * Inserts a node into the open list, or updates its key if it's already open.
+	 */
+	private void push(final JPNode node) {
+		if (tie != null)
+			open.offerPacked(node.handle, tie.key(node.getF(), (float) node.getG(), node));
+		else
+			open.offer(node.handle, node.getF());
+	}
+	
+	private JPNode poll() {
+		final int handle = open.poll();
+		return handle >= 0 ? nodes.get(handle) : null;
 	}
 	
 	/**
@@ -220,6 +286,10 @@ class JPSImpl implements AlgorithmDefinition {
 		 * As the algorithm runs the F value of a node tells us how expensive we think it will be to reach our goal by way of that node.
 		 */
 		private java.lang.Double f;
+		/**
+		 * the handle of this node in the open list.
+		 */
+		private int handle = -1;
 		
 		public JPNode(final int x, final int y) {
 			super(x, y);
@@ -245,7 +315,7 @@ class JPSImpl implements AlgorithmDefinition {
 
 		protected double getF() {
 			if (g == null || h == null || f == null) {
-				f = getG() + getH();
+				f = getG() + weight * getH();
 			}
 			return f;
 		}
@@ -263,7 +333,7 @@ class JPSImpl implements AlgorithmDefinition {
 				return 0;
 			int x = node.getX(), y = node.getY(), px = getX(), py = getY();
 			int steps = getSteps(x, y, px, py);
-			return x == px || y == px ? steps : (double) steps * diagonal;
+			return x == px || y == py ? steps : (double) steps * diagonal;
 		}
 		
 		protected double getH() {
@@ -0,0 +1,104 @@
+package com.overload.algorithms.pathfinding;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+
+/**
+ * Jump point search answered from precomputed jump distances (JPS+).<br>
+ * Jumps are read from a {@link JumpTable} instead of being scanned,
+ * only the goal bounding checks, which stop a jump at the goal's row or column, are left at runtime.<br>
+ * This algorithm only works eight way and requires the flags to be a {@link JumpTable}.
+ * @see JPSBitscanImpl
+ * @author Odell
+ */
+class JPSPlusImpl extends GridDefinition {
+
+	private JumpTable table;
+	private int goalX, goalY;
+
+	@Override
+	public void setFlags(Flags flags) {
+		if (flags instanceof JumpTable) {
+			table = (JumpTable) flags;
+			super.setFlags(table.getGrid());
+		} else {
+			table = null;
+			super.setFlags(flags);
+		}
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		if (table == null)
+			throw new IllegalStateException("collision flags must be a JumpTable");
+		goalX = goal % width;
+		goalY = goal / width;
+		relax(source, -1, 0.0F, heuristic(source % width, source / width));
+		while (!open.isEmpty()) {
+			final int curr = open.poll();
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int x = curr % width, y = curr / width;
+			final int p = parent[curr];
+			if (p < 0) { // no parent, search every direction
+				for (int d = 0; d < 8; d++)
+					successor(curr, x, y, d);
+				continue;
+			}
+			// normalize
+			final int dx = Integer.signum(x - p % width), dy = Integer.signum(y - p / width);
+			if (dx != 0 && dy != 0) { // diagonal direction
+				successor(curr, x, y, JumpTable.direction(0, dy));
+				successor(curr, x, y, JumpTable.direction(dx, 0));
+				successor(curr, x, y, JumpTable.direction(dx, dy));
+				// forced neighbor checks
+				if (grid.blocked(x - dx, y))
+					successor(curr, x, y, JumpTable.direction(-dx, dy));
+				if (grid.blocked(x, y - dy))
+					successor(curr, x, y, JumpTable.direction(dx, -dy));
+			} else if (dx != 0) { // horizontal
+				successor(curr, x, y, JumpTable.direction(dx, 0));
+				if (grid.blocked(x, y - 1))
+					successor(curr, x, y, JumpTable.direction(dx, -1));
+				if (grid.blocked(x, y + 1))
+					successor(curr, x, y, JumpTable.direction(dx, 1));
+			} else { // vertical
+				successor(curr, x, y, JumpTable.direction(0, dy));
+				if (grid.blocked(x - 1, y))
+					successor(curr, x, y, JumpTable.direction(-1, dy));
+				if (grid.blocked(x + 1, y))
+					successor(curr, x, y, JumpTable.direction(1, dy));
+			}
+		}
+		return -1;
+	}
+
+	private void successor(final int curr, final int x, final int y, final int d) {
+		final int dx = GridAStarImpl.DX[d], dy = GridAStarImpl.DY[d];
+		final int dist = table.distance(curr, d);
+		final int reach = Math.abs(dist); // open cells in this direction before the jump point or wall
+		int steps = dist > 0 ? dist : -1;
+		// goal bounding
+		if (dx == 0 || dy == 0) {
+			final int ahead = dx != 0 ? (goalX - x) * dx : (goalY - y) * dy;
+			if ((dx != 0 ? goalY == y : goalX == x) && ahead > 0 && ahead <= reach)
+				steps = ahead;
+		} else {
+			// stop diagonally at the goal's row or column, a straight jump can reach the goal from there
+			final int ahead = Math.min((goalX - x) * dx, (goalY - y) * dy);
+			if (ahead > 0 && ahead <= reach)
+				steps = ahead;
+		}
+		if (steps < 0)
+			return;
+		final int jumpPoint = (y + dy * steps) * width + x + dx * steps;
+		final boolean seen = visited(jumpPoint);
+		if (seen && !open.contains(jumpPoint)) // closed
+			return;
+		final float ng = g[curr] + cost(curr, jumpPoint);
+		if (seen && ng >= g[jumpPoint])
+			return;
+		relax(jumpPoint, curr, ng, ng + heuristic(jumpPoint % width, jumpPoint / width));
+	}
+
+}
\ No newline at end of file
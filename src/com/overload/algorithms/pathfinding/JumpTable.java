@@ -0,0 +1,212 @@
+package com.overload.algorithms.pathfinding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.loc.Locatable;
+
+/**
+ * Precomputed jump distances of a static grid (JPS+), as described by Steve Rabin in 2015.<br>
+ * For every cell and each of the 8 directions, stores the distance to the next jump point,
+ * or the number of open cells before a wall, in a compact short table.<br>
+ * A positive distance d is a jump point d cells away, zero or a negative distance -d is a wall after d open cells.
+ * Runs longer than {@link #MAX_DISTANCE} are split with an intermediate jump point.<br>
+ * Tables can be written to a file and memory-mapped back, the grid must not change after the table was computed.<br>
+ * Used as the collision flags of {@link Pathfinding.Algorithm#JPS_PLUS}, cells are tested against the grid.
+ * @author Odell
+ */
+public class JumpTable implements Flags {
+
+	/**
+	 * the longest distance which can be stored.
+	 */
+	public static final int MAX_DISTANCE = Short.MAX_VALUE;
+
+	private static final int MAGIC = 0x4A50532B; // "JPS+"
+	private static final int VERSION = 1;
+	private static final int HEADER = 16;
+
+	/**
+	 * Maps a normalized direction (dy + 1) * 3 + (dx + 1) to its direction index.
+	 */
+	private static final int[] DIRECTION = { 7, 0, 4, 3, -1, 1, 6, 2, 5 };
+
+	private final BitGrid grid;
+	/**
+	 * the distances, 8 per cell ordered as {@link GridAStarImpl#DX}.
+	 */
+	private final ShortBuffer table;
+
+	private JumpTable(final BitGrid grid, final ShortBuffer table) {
+		this.grid = grid;
+		this.table = table;
+	}
+
+	/**
+	 * Computes the jump distances of every cell of the grid.
+	 * @param grid the static collision grid.
+	 * @return the jump table.
+	 */
+	public static JumpTable compute(final BitGrid grid) {
+		final int width = grid.getWidth(), height = grid.getHeight();
+		if ((long) width * (long) height * 8L > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("grid is too large");
+		final short[] t = new short[width * height * 8];
+		// straight directions come first, diagonal jump points depend on them
+		for (int d = 0; d < 8; d++) {
+			final int dx = GridAStarImpl.DX[d], dy = GridAStarImpl.DY[d];
+			// sweep against the direction of travel, so the next cell is always computed first
+			for (int j = 0; j < height; j++) {
+				final int y = dy > 0 ? height - 1 - j : j;
+				for (int i = 0; i < width; i++) {
+					final int x = dx > 0 ? width - 1 - i : i;
+					if (grid.blocked(x, y))
+						continue;
+					final int nx = x + dx, ny = y + dy;
+					final short v;
+					if (grid.blocked(nx, ny)) {
+						v = 0;
+					} else if (dx == 0 || dy == 0 ? forcedStraight(grid, nx, ny, dx, dy) : forcedDiagonal(grid, t, width, nx, ny, dx, dy)) {
+						v = 1;
+					} else {
+						final int next = t[((ny * width + nx) << 3) + d];
+						final int dist = next > 0 ? next + 1 : next - 1;
+						v = (short) (dist > MAX_DISTANCE || dist < -MAX_DISTANCE ? MAX_DISTANCE : dist);
+					}
+					t[((y * width + x) << 3) + d] = v;
+				}
+			}
+		}
+		return new JumpTable(grid, ShortBuffer.wrap(t));
+	}
+
+	/**
+	 * Determines whether the cell has a forced neighbor when moving straight.
+	 */
+	private static boolean forcedStraight(final BitGrid grid, final int x, final int y, final int dx, final int dy) {
+		return (grid.blocked(x + dy, y + dx) && !grid.blocked(x + dy + dx, y + dx + dy)) ||
+				(grid.blocked(x - dy, y - dx) && !grid.blocked(x - dy + dx, y - dx + dy));
+	}
+
+	/**
+	 * Determines whether the cell is a jump point when moving diagonally,
+	 * either it has a forced neighbor or a straight jump point can be reached from it.
+	 */
+	private static boolean forcedDiagonal(final BitGrid grid, final short[] t, final int width, final int x, final int y, final int dx, final int dy) {
+		if ((grid.blocked(x - dx, y) && !grid.blocked(x - dx, y + dy)) ||
+			(grid.blocked(x, y - dy) && !grid.blocked(x + dx, y - dy)))
+			return true;
+		final int cell = (y * width + x) << 3;
+		return t[cell + direction(dx, 0)] > 0 || t[cell + direction(0, dy)] > 0;
+	}
+
+	/**
+	 * Memory-maps a table previously written with {@link #write(File)}.<br>
+	 * The distances are read straight from the mapping, only the collision grid is copied into memory.
+	 * @param file the table file.
+	 * @return the jump table.
+	 * @throws IOException if the file couldn't be read or isn't a jump table.
+	 */
+	public static JumpTable map(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("jump table file is too large to map");
+			final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.remaining() < HEADER || buf.getInt() != MAGIC)
+				throw new IOException("not a jump table file");
+			if (buf.getInt() != VERSION)
+				throw new IOException("unsupported jump table version");
+			final int width = buf.getInt(), height = buf.getInt();
+			if (width <= 0 || height <= 0)
+				throw new IOException("invalid jump table bounds");
+			final BitGrid grid = new BitGrid(width, height);
+			final int stride = grid.getStride();
+			final long cells = (long) width * (long) height;
+			if (buf.remaining() != (long) stride * height * 8L + cells * 16L)
+				throw new IOException("truncated jump table file");
+			for (int y = 0; y < height; y++) {
+				for (int i = 0; i < stride; i++)
+					grid.setWord(y, i, buf.getLong());
+			}
+			return new JumpTable(grid, buf.slice().asShortBuffer());
+		} finally {
+			raf.close(); // the mapping stays valid after the channel is closed
+		}
+	}
+
+	/**
+	 * Writes this table and its collision grid to a file, which can be mapped back with {@link #map(File)}.
+	 * @param file the file to write.
+	 * @throws IOException if the file couldn't be written.
+	 */
+	public void write(final File file) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			final int width = grid.getWidth(), height = grid.getHeight();
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			for (int y = 0; y < height; y++) {
+				for (int i = 0, stride = grid.getStride(); i < stride; i++)
+					out.writeLong(grid.getWord(y, i));
+			}
+			for (int i = 0, len = width * height * 8; i < len; i++)
+				out.writeShort(table.get(i));
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return the collision grid of this table.
+	 */
+	public BitGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Returns the jump distance of a cell.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @param dx the X direction, -1, 0 or 1.
+	 * @param dy the Y direction, -1, 0 or 1.
+	 * @return a positive distance to the next jump point, or zero or the negated number of open cells before a wall.
+	 */
+	public int getDistance(final int x, final int y, final int dx, final int dy) {
+		if (!grid.inBounds(x, y))
+			throw new IndexOutOfBoundsException("(" + x + "," + y + ") is out of bounds");
+		final int d = direction(dx, dy);
+		if (d < 0)
+			throw new IllegalArgumentException("no direction");
+		return distance(y * grid.getWidth() + x, d);
+	}
+
+	int distance(final int cell, final int direction) {
+		return table.get((cell << 3) + direction);
+	}
+
+	/**
+	 * Returns the direction index, as ordered by {@link GridAStarImpl#DX}, of a normalized direction.
+	 */
+	static int direction(final int dx, final int dy) {
+		return DIRECTION[(dy + 1) * 3 + dx + 1];
+	}
+
+	@Override
+	public boolean blocked(final Locatable loc, final Locatable parent) {
+		return grid.blocked(loc.getX(), loc.getY());
+	}
+
+}
\ No newline at end of file
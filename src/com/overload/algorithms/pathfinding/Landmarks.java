@@ -0,0 +1,366 @@
+package com.overload.algorithms.pathfinding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.CostFlags;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Precomputed landmark distances of a static grid, for the ALT heuristic described by Goldberg and Harrelson in 2005.<br>
+ * A few landmarks are chosen far apart from each other and the exact distance between every cell and each landmark is stored.
+ * By the triangle inequality <tt>d(n, t) &ge; d(L, t) - d(L, n)</tt>, which bounds the remaining distance much tighter
+ * than a geometric heuristic on maze-like maps, where walls make paths far longer than the straight line.<br>
+ * Distances are stored in fixed point, {@link #SCALE} units per cost unit, in a compact int table with every landmark of a cell adjacent.
+ * With {@link CostFlags} the distances to the landmarks differ from the distances from them, and both are stored.<br>
+ * Tables can be written to a file and memory-mapped back, the grid must not change after the table was computed.
+ * The flags and costs must not depend on the parent.
+ * @see Pathfinding#setLandmarks(Landmarks)
+ * @author Odell
+ */
+public class Landmarks {
+
+	/**
+	 * the fixed point units per cost unit.
+	 */
+	public static final int SCALE = 256;
+	/**
+	 * the distance stored for cells which can't reach or be reached by a landmark.
+	 */
+	private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private static final int MAGIC = 0x414C5421; // "ALT!"
+	private static final int VERSION = 1;
+	private static final int HEADER = 32;
+
+	private final int width, height;
+	private final boolean eight;
+	private final double diagonal;
+	/**
+	 * the cell of every landmark.
+	 */
+	private final int[] landmarks;
+	/**
+	 * the distances from and to the landmarks, {@link #landmarks}.length per cell.
+	 * Both are the same table if the costs are symmetric.
+	 */
+	private final IntBuffer from, to;
+
+	private Landmarks(final int width, final int height, final boolean eight, final double diagonal, final int[] landmarks, final IntBuffer from, final IntBuffer to) {
+		this.width = width;
+		this.height = height;
+		this.eight = eight;
+		this.diagonal = diagonal;
+		this.landmarks = landmarks;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Chooses the landmarks and computes their distances to every cell, with one Dijkstra search per landmark and direction.<br>
+	 * Landmarks are chosen farthest first within the largest region of the grid,
+	 * each one is the cell farthest from the landmarks chosen before it. Searches elsewhere fall back to the plain heuristic.
+	 * @param flags the static collision flags, terrain costs are included if they're {@link CostFlags}.
+	 * @param width the width of the grid.
+	 * @param height the height of the grid.
+	 * @param eight whether to move in eight or four directions, which must match the pathfinder.
+	 * @param diagonal the cost of diagonal movement, which must match the pathfinder.
+	 * @param count the number of landmarks, fewer are chosen if the largest region has fewer cells.
+	 * @return the landmark table.
+	 */
+	public static Landmarks compute(final Flags flags, final int width, final int height, final boolean eight, final double diagonal, final int count) {
+		if (flags == null)
+			throw new IllegalArgumentException("flags can't be null");
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if (count <= 0)
+			throw new IllegalArgumentException("landmark count must be positive");
+		final long cells = (long) width * (long) height;
+		if (cells * count > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("grid is too large for " + count + " landmarks");
+		final Dijkstra search = new Dijkstra(flags, width, height, eight, diagonal);
+		// seed the choice in the largest region, where the long searches are
+		final ComponentIndex components = new ComponentIndex(flags, width, height, eight);
+		final int[] sizes = new int[(int) cells];
+		int seed = -1;
+		for (int i = 0, largest = 0; i < cells; i++) {
+			final int c = components.getComponent(i % width, i / width);
+			if (c >= 0 && ++sizes[c] > largest) {
+				largest = sizes[c];
+				seed = i;
+			}
+		}
+		if (seed < 0)
+			throw new IllegalArgumentException("grid has no open cells");
+		final int[] closest = new int[(int) cells];
+		search.run(seed, false, closest, 0, 1);
+		final int[] landmarks = new int[count];
+		final int[] from = new int[(int) cells * count];
+		final int[] to = search.costs != null ? new int[from.length] : from;
+		int chosen = 0;
+		while (chosen < count) {
+			int far = -1;
+			for (int i = 0; i < closest.length; i++) {
+				if (closest[i] > 0 && closest[i] != UNREACHABLE && (far < 0 || closest[i] > closest[far]))
+					far = i;
+			}
+			if (far < 0) // every cell of the region is a landmark
+				break;
+			landmarks[chosen] = far;
+			search.run(far, false, from, chosen, count);
+			if (to != from)
+				search.run(far, true, to, chosen, count);
+			for (int i = 0, j = chosen; i < closest.length; i++, j += count) {
+				if (i == far || from[j] < closest[i])
+					closest[i] = i == far ? 0 : from[j];
+			}
+			chosen++;
+		}
+		if (chosen < count) {
+			// repack the tables to the number of landmarks actually chosen
+			final int[] f = new int[(int) cells * chosen], t = to != from ? new int[f.length] : f;
+			for (int i = 0; i < cells; i++) {
+				System.arraycopy(from, i * count, f, i * chosen, chosen);
+				if (t != f)
+					System.arraycopy(to, i * count, t, i * chosen, chosen);
+			}
+			return new Landmarks(width, height, eight, diagonal, Arrays.copyOf(landmarks, chosen), IntBuffer.wrap(f), IntBuffer.wrap(t));
+		}
+		return new Landmarks(width, height, eight, diagonal, landmarks, IntBuffer.wrap(from), to != from ? IntBuffer.wrap(to) : IntBuffer.wrap(from));
+	}
+
+	/**
+	 * Memory-maps a table previously written with {@link #write(File)}.<br>
+	 * The distances are read straight from the mapping.
+	 * @param file the table file.
+	 * @return the landmark table.
+	 * @throws IOException if the file couldn't be read or isn't a landmark table.
+	 */
+	public static Landmarks map(final File file) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = raf.getChannel();
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("landmark file is too large to map");
+			final MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buf.remaining() < HEADER || buf.getInt() != MAGIC)
+				throw new IOException("not a landmark file");
+			if (buf.getInt() != VERSION)
+				throw new IOException("unsupported landmark version");
+			final int width = buf.getInt(), height = buf.getInt(), count = buf.getInt(), mode = buf.getInt();
+			final double diagonal = buf.getDouble();
+			if (width <= 0 || height <= 0 || count <= 0)
+				throw new IOException("invalid landmark bounds");
+			final boolean symmetric = (mode & 2) == 0;
+			final long table = (long) width * (long) height * count * 4L;
+			if (buf.remaining() != count * 4L + (symmetric ? table : table << 1))
+				throw new IOException("truncated landmark file");
+			final int[] landmarks = new int[count];
+			for (int i = 0; i < count; i++)
+				landmarks[i] = buf.getInt();
+			final IntBuffer from = buf.slice().asIntBuffer();
+			IntBuffer to = from;
+			if (!symmetric) {
+				buf.position(buf.position() + (int) table);
+				to = buf.slice().asIntBuffer();
+			}
+			return new Landmarks(width, height, (mode & 1) != 0, diagonal, landmarks, from, to);
+		} finally {
+			raf.close(); // the mapping stays valid after the channel is closed
+		}
+	}
+
+	/**
+	 * Writes this table to a file, which can be mapped back with {@link #map(File)}.
+	 * @param file the file to write.
+	 * @throws IOException if the file couldn't be written.
+	 */
+	public void write(final File file) throws IOException {
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			final boolean symmetric = from == to;
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(width);
+			out.writeInt(height);
+			out.writeInt(landmarks.length);
+			out.writeInt((eight ? 1 : 0) | (symmetric ? 0 : 2));
+			out.writeDouble(diagonal);
+			for (int i = 0; i < landmarks.length; i++)
+				out.writeInt(landmarks[i]);
+			final int len = width * height * landmarks.length;
+			for (int i = 0; i < len; i++)
+				out.writeInt(from.get(i));
+			if (!symmetric) {
+				for (int i = 0; i < len; i++)
+					out.writeInt(to.get(i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @return the width of the grid.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the grid.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return whether the distances were computed moving in eight directions.
+	 */
+	public boolean isEight() {
+		return eight;
+	}
+
+	/**
+	 * @return the cost of diagonal movement the distances were computed with.
+	 */
+	public double getDiagonal() {
+		return diagonal;
+	}
+
+	/**
+	 * @return the number of landmarks.
+	 */
+	public int getCount() {
+		return landmarks.length;
+	}
+
+	/**
+	 * @param index the index of the landmark.
+	 * @return the location of the landmark.
+	 */
+	public Locatable getLandmark(final int index) {
+		return new Node(landmarks[index] % width, landmarks[index] / width);
+	}
+
+	/**
+	 * Returns a lower bound of the cost of moving from a location to another, which is an admissible and consistent heuristic.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return the lower bound, or 0 if a location is out of bounds.
+	 */
+	public double distance(final Locatable start, final Locatable end) {
+		final int sx = start.getX(), sy = start.getY(), ex = end.getX(), ey = end.getY();
+		if (sx < 0 || sy < 0 || sx >= width || sy >= height || ex < 0 || ey < 0 || ex >= width || ey >= height)
+			return 0.0D;
+		return bound(sy * width + sx, ey * width + ex);
+	}
+
+	/**
+	 * Returns the lower bound of the cost of moving from a cell to a goal cell.<br>
+	 * One fixed point unit is taken off, since both distances were rounded down.
+	 */
+	float bound(final int cell, final int goal) {
+		final int k = landmarks.length;
+		int best = 0;
+		for (int i = 0, c = cell * k, t = goal * k; i < k; i++, c++, t++) {
+			final int fc = from.get(c), ft = from.get(t), tc = to.get(c), tt = to.get(t);
+			if (fc == UNREACHABLE || ft == UNREACHABLE || tc == UNREACHABLE || tt == UNREACHABLE)
+				continue;
+			// d(L, t) <= d(L, n) + d(n, t) and d(n, L) <= d(n, t) + d(t, L)
+			final int d = Math.max(ft - fc, tc - tt);
+			if (d > best)
+				best = d;
+		}
+		return best > 1 ? (float) (best - 1) / SCALE : 0.0F;
+	}
+
+	/**
+	 * A Dijkstra search over every open cell, moving into a cell costs as much as it does for {@link GridDefinition}.
+	 */
+	private static final class Dijkstra {
+
+		private final Flags flags;
+		private final BitGrid grid;
+		private final CostFlags costs;
+		private final int width, height;
+		private final boolean eight;
+		private final double diagonal;
+		private final double[] dist;
+		private final IndexedHeap open;
+		private final Node probe = new Node(0, 0);
+
+		private Dijkstra(final Flags flags, final int width, final int height, final boolean eight, final double diagonal) {
+			this.flags = flags;
+			this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
+			this.costs = flags instanceof CostFlags ? (CostFlags) flags : null;
+			this.width = width;
+			this.height = height;
+			this.eight = eight;
+			this.diagonal = diagonal;
+			this.dist = new double[width * height];
+			this.open = new IndexedHeap(width * height);
+		}
+
+		/**
+		 * Computes the distance between the source and every cell into <tt>out[cell * stride + offset]</tt>.
+		 * @param reverse whether to compute the distances to the source, rather than from it.
+		 */
+		private void run(final int source, final boolean reverse, final int[] out, final int offset, final int stride) {
+			Arrays.fill(dist, Double.POSITIVE_INFINITY);
+			dist[source] = 0.0D;
+			open.offer(source, 0.0D);
+			final int dirs = eight ? 8 : 4;
+			int curr;
+			while ((curr = open.poll()) >= 0) {
+				final int cx = curr % width, cy = curr / width;
+				final double cd = dist[curr];
+				// moving into the current cell, when searching backward from the source
+				final double into = reverse ? cost(curr) : 0.0D;
+				for (int d = 0; d < dirs; d++) {
+					final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+					if (nx < 0 || ny < 0 || nx >= width || ny >= height)
+						continue;
+					final int n = ny * width + nx;
+					if (dist[n] != Double.POSITIVE_INFINITY && !open.contains(n))
+						continue;
+					if (blocked(n))
+						continue;
+					final double nd = cd + (d < 4 ? 1.0D : diagonal) * (reverse ? into : cost(n));
+					if (nd < dist[n]) {
+						dist[n] = nd;
+						open.offer(n, nd);
+					}
+				}
+			}
+			for (int i = 0, j = offset; i < dist.length; i++, j += stride) {
+				final double scaled = Math.floor(dist[i] * SCALE);
+				out[j] = scaled < UNREACHABLE ? (int) scaled : UNREACHABLE;
+			}
+		}
+
+		private double cost(final int cell) {
+			return costs != null ? costs.getCost(probe.set(cell % width, cell / width), null) : 1.0D;
+		}
+
+		private boolean blocked(final int cell) {
+			final int x = cell % width, y = cell / width;
+			if (grid != null)
+				return grid.blocked(x, y);
+			return flags.blocked(probe.set(x, y), null);
+		}
+
+	}
+
+}
\ No newline at end of file
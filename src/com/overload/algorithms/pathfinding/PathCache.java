@@ -0,0 +1,318 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+
+/**
+ * A caching decorator of a pathfinding provider.<br>
+ * Results are memoized by their start, end, algorithm and settings, and evicted least recently used first
+ * once the cached paths hold more than the given number of locations.<br>
+ * Settings must be changed through this cache rather than the decorated pathfinder.
+ * When the collision flags change, {@link #invalidate(Rectangle)} drops every path crossing the changed region.<br>
+ * Cached paths are shared between callers and must not be modified.
+ * @author Odell
+ */
+public class PathCache implements AlgorithmSettings {
+
+	private final Pathfinding pathfinding;
+	private final int capacity;
+	private final LinkedHashMap<Query, Entry> entries;
+	private Settings settings;
+	private int weight = 0;
+	private long hits = 0L, misses = 0L;
+
+	/**
+	 * Creates a path cache.
+	 * @param pathfinding the pathfinder to decorate.
+	 * @param capacity the maximum number of locations held by all cached paths together.
+	 */
+	public PathCache(final Pathfinding pathfinding, final int capacity) {
+		if (pathfinding == null)
+			throw new IllegalArgumentException("pathfinding can't be null");
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.pathfinding = pathfinding;
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Query, Entry>(16, 0.75F, true); // access order
+		this.settings = new Settings(null, null, null, false, 1.0D, 1.0D, 0, 0);
+	}
+
+	/**
+	 * Returns the decorated pathfinder.
+	 * @return the decorated pathfinder.
+	 */
+	public final Pathfinding getPathfinding() {
+		return pathfinding;
+	}
+
+	@Override
+	public synchronized void setEight(boolean eight) {
+		pathfinding.setEight(eight);
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setFlags(Flags flags) {
+		pathfinding.setFlags(flags);
+		final Settings s = settings;
+		settings = new Settings(flags, s.heur, s.tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setHeuristic(Heuristic heur) {
+		pathfinding.setHeuristic(heur);
+		final Settings s = settings;
+		settings = new Settings(s.flags, heur, s.tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setDiagonal(double diagonal) {
+		pathfinding.setDiagonal(diagonal);
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setWeight(double weight) {
+		pathfinding.setWeight(weight);
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, s.diagonal, weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setTieBreaking(TieBreaking tie) {
+		pathfinding.setTieBreaking(tie);
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setBounds(int width, int height) {
+		pathfinding.setBounds(width, height);
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, s.diagonal, s.weight, width, height);
+	}
+
+	/**
+	 * Finds a path from the start to the end, or returns the cached path of an identical earlier query.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return a valid, unmodifiable path to the destination, otherwise null if there was no path.
+	 */
+	public synchronized List<Locatable> findPath(final Locatable start, final Locatable end) {
+		final Query query = new Query(start.getX(), start.getY(), end.getX(), end.getY(), settings);
+		final Entry cached = entries.get(query);
+		if (cached != null) {
+			hits++;
+			return cached.path;
+		}
+		misses++;
+		final List<Locatable> found = pathfinding.findPath(start, end);
+		final Entry entry = new Entry(found != null ? Collections.unmodifiableList(found) : null);
+		entries.put(query, entry);
+		weight += entry.weight;
+		trim();
+		return entry.path;
+	}
+
+	/**
+	 * Drops every cached path crossing the region, and every cached failure since the region may have opened a path.<br>
+	 * The decorated pathfinder is notified as well.
+	 * @param region the changed region.
+	 */
+	public synchronized void invalidate(final Rectangle region) {
+		pathfinding.invalidate(region);
+		final Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			final Entry e = it.next();
+			if (e.crosses(region)) {
+				weight -= e.weight;
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops every cached path, the hit and miss counters are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * @return the number of cached queries.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * @return the number of queries answered from the cache.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the number of queries which had to be searched.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Evicts the least recently used paths until the cache is within its capacity.
+	 */
+	private void trim() {
+		final Iterator<Entry> it = entries.values().iterator();
+		while (weight > capacity && it.hasNext()) {
+			weight -= it.next().weight;
+			it.remove();
+		}
+	}
+
+	/**
+	 * An immutable snapshot of the settings a query was searched with.
+	 * @author Odell
+	 */
+	private static class Settings {
+
+		private final Flags flags;
+		private final Heuristic heur;
+		private final TieBreaking tie;
+		private final boolean eight;
+		private final double diagonal, weight;
+		private final int width, height;
+
+		private Settings(final Flags flags, final Heuristic heur, final TieBreaking tie, final boolean eight, final double diagonal, final double weight, final int width, final int height) {
+			this.flags = flags;
+			this.heur = heur;
+			this.tie = tie;
+			this.eight = eight;
+			this.diagonal = diagonal;
+			this.weight = weight;
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Settings))
+				return false;
+			final Settings s = (Settings) o;
+			return flags == s.flags && heur == s.heur && tie == s.tie && eight == s.eight &&
+					Double.compare(diagonal, s.diagonal) == 0 && Double.compare(weight, s.weight) == 0 && width == s.width && height == s.height;
+		}
+
+		@Override
+		public int hashCode() {
+			int h = System.identityHashCode(flags);
+			h = h * 31 + (heur != null ? heur.hashCode() : 0);
+			h = h * 31 + (tie != null ? tie.hashCode() : 0);
+			h = h * 31 + (eight ? 1 : 0);
+			final long d = Double.doubleToLongBits(diagonal);
+			h = h * 31 + (int) (d ^ (d >>> 32));
+			final long w = Double.doubleToLongBits(weight);
+			h = h * 31 + (int) (w ^ (w >>> 32));
+			h = h * 31 + width;
+			return h * 31 + height;
+		}
+
+	}
+
+	/**
+	 * The key of a cached path, the algorithm is fixed by the decorated pathfinder.
+	 * @author Odell
+	 */
+	private static class Query {
+
+		private final int sx, sy, ex, ey;
+		private final Settings settings;
+
+		private Query(final int sx, final int sy, final int ex, final int ey, final Settings settings) {
+			this.sx = sx;
+			this.sy = sy;
+			this.ex = ex;
+			this.ey = ey;
+			this.settings = settings;
+		}
+
+		@Override
+		public boolean equals(final Object o) {
+			if (!(o instanceof Query))
+				return false;
+			final Query q = (Query) o;
+			return sx == q.sx && sy == q.sy && ex == q.ex && ey == q.ey && settings.equals(q.settings);
+		}
+
+		@Override
+		public int hashCode() {
+			int h = sx;
+			h = h * 31 + sy;
+			h = h * 31 + ex;
+			h = h * 31 + ey;
+			return h * 31 + settings.hashCode();
+		}
+
+	}
+
+	/**
+	 * A cached path with its bounding box, so most paths can be ruled out of an invalidated region without a scan.<br>
+	 * Paths of waypoints, such as those of the any-angle algorithms, cross every cell on the supercover lines between them.
+	 * @author Odell
+	 */
+	private static class Entry {
+
+		private final List<Locatable> path;
+		private final int weight;
+		private int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+
+		private Entry(final List<Locatable> path) {
+			this.path = path;
+			this.weight = path != null ? Math.max(1, path.size()) : 1;
+			if (path != null) {
+				for (final Locatable l : path) {
+					minX = Math.min(minX, l.getX());
+					minY = Math.min(minY, l.getY());
+					maxX = Math.max(maxX, l.getX());
+					maxY = Math.max(maxY, l.getY());
+				}
+			}
+		}
+
+		private boolean crosses(final Rectangle r) {
+			if (path == null)
+				return true;
+			if (maxX < r.x || maxY < r.y || minX >= r.x + r.width || minY >= r.y + r.height)
+				return false;
+			final Locatable first = path.get(0);
+			if (r.contains(first.getX(), first.getY()))
+				return true;
+			final Paths.Ray ray = new Paths.Ray(null) {
+				@Override
+				boolean blocked(final int x, final int y, final int px, final int py) {
+					return r.contains(x, y);
+				}
+			};
+			for (int i = 1; i < path.size(); i++) {
+				final Locatable a = path.get(i - 1), b = path.get(i);
+				final boolean step = Math.abs(b.getX() - a.getX()) <= 1 && Math.abs(b.getY() - a.getY()) <= 1;
+				if (step ? r.contains(b.getX(), b.getY()) : !ray.clear(a.getX(), a.getY(), b.getX(), b.getY()))
+					return true;
+			}
+			return false;
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+import com.overload.util.NanoTimer;
+
+/**
+ * A time-sliced search, which is bounded by an expansion budget and/or a {@link NanoTimer} deadline per slice.<br>
+ * A search which runs out of budget can be resumed on a later tick, and meanwhile offers the best partial path
+ * toward the node closest to the destination, so agents can start moving before the search ends.<br>
+ * Every search owns its own search state, settings apply to the next search begun.
+ * Only {@link Algorithm#ASTAR}, {@link Algorithm#ASTAR_GRID} and the anytime {@link Algorithm#ARA_STAR} support time slicing.
+ * @author Odell
+ */
+public class PathSearch implements AlgorithmSettings {
+
+	/**
+	 * The status of a time-sliced search.
+	 * @author Odell
+	 */
+	public enum Status {
+		/**
+		 * the budget ran out before the search ended, it can be resumed.
+		 */
+		IN_PROGRESS,
+		/**
+		 * a path to the destination was found.
+		 */
+		FOUND,
+		/**
+		 * the destination can't be reached.
+		 */
+		NO_PATH
+	}
+
+	protected final Algorithm algorithm;
+	private final ResumableDefinition definition;
+	private Flags flags;
+	private Heuristic heur;
+	private TieBreaking tie;
+	private boolean eight;
+	private double diagonal = 1.0D, weight = 1.0D;
+	private int width = 0, height = 0;
+	private Status status = Status.NO_PATH;
+
+	/**
+	 * Creates a time-sliced search provider given an algorithm type and flags.
+	 * @param alg the algorithm implementation to use, ASTAR, ASTAR_GRID or ARA_STAR.
+	 * @param flags the collision flags.
+	 */
+	public PathSearch(final Algorithm alg, final Flags flags) {
+		if (alg == null)
+			throw new IllegalArgumentException("algorithm can't be null");
+		final AlgorithmDefinition def = alg.newDefinition();
+		if (!(def instanceof ResumableDefinition))
+			throw new IllegalArgumentException(alg + " doesn't support time-sliced searches");
+		this.algorithm = alg;
+		this.definition = (ResumableDefinition) def;
+		this.flags = flags;
+	}
+
+	/**
+	 * Returns the algorithm of this search.
+	 * @return the algorithm of this search.
+	 */
+	public final Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public synchronized void setEight(boolean eight) {
+		this.eight = eight;
+	}
+
+	@Override
+	public synchronized void setFlags(Flags flags) {
+		this.flags = flags;
+	}
+
+	@Override
+	public synchronized void setHeuristic(Heuristic heur) {
+		this.heur = heur;
+	}
+
+	@Override
+	public synchronized void setDiagonal(double diagonal) {
+		this.diagonal = diagonal;
+	}
+
+	@Override
+	public synchronized void setWeight(double weight) {
+		if (weight < 1.0D)
+			throw new IllegalArgumentException("weight must be at least 1");
+		this.weight = weight;
+	}
+
+	@Override
+	public synchronized void setTieBreaking(TieBreaking tie) {
+		this.tie = tie;
+	}
+
+	@Override
+	public synchronized void setBounds(int width, int height) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Begins a new search from the start to the end, discarding the current one, and runs its first slice.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @param maxExpansions the most nodes to expand in this slice.
+	 * @param deadline the timer which stops this slice once inactive, null for no deadline.
+	 * @return the status of the search after its first slice.
+	 */
+	public synchronized Status begin(final Locatable start, final Locatable end, final int maxExpansions, final NanoTimer deadline) {
+		definition.setFlags(flags);
+		definition.setHeuristic(heur);
+		definition.setTieBreaking(tie);
+		definition.setEight(eight);
+		definition.setDiagonal(diagonal);
+		definition.setWeight(weight);
+		if (width > 0 && height > 0)
+			definition.setBounds(width, height);
+		definition.begin(start, end);
+		status = Status.IN_PROGRESS;
+		return resume(maxExpansions, deadline);
+	}
+
+	/**
+	 * Runs another slice of the current search.
+	 * @param maxExpansions the most nodes to expand in this slice.
+	 * @param deadline the timer which stops this slice once inactive, null for no deadline.
+	 * @return the status of the search after this slice.
+	 */
+	public synchronized Status resume(final int maxExpansions, final NanoTimer deadline) {
+		if (maxExpansions <= 0)
+			throw new IllegalArgumentException("expansion budget must be positive");
+		if (status == Status.IN_PROGRESS)
+			status = definition.resume(maxExpansions, deadline);
+		return status;
+	}
+
+	/**
+	 * @return the status of the current search.
+	 */
+	public synchronized Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Returns the path to the destination once found, otherwise the best partial path so far,
+	 * which leads from the start to the expanded node with the lowest heuristic distance to the destination.
+	 * @return the path or partial path, or null if the search couldn't begin.
+	 */
+	public synchronized List<Locatable> getPath() {
+		return definition.getPath();
+	}
+
+	/**
+	 * Returns the suboptimality bound of the current path, its cost is at most this many times the optimal cost.<br>
+	 * Anytime algorithms lower the bound as they improve the path.
+	 * @return the suboptimality bound, or positive infinity if no path was found yet.
+	 */
+	public synchronized double getBound() {
+		return definition.getBound();
+	}
+
+	/**
+	 * @return the number of nodes expanded by the current search, over all of its slices.
+	 */
+	public synchronized int getExpanded() {
+		return definition.getExpanded();
+	}
+
+}
\ No newline at end of file
@@ -1,18 +1,24 @@
 package com.overload.algorithms.pathfinding;
 
+import java.awt.Rectangle;
 import java.util.List;
 
 import com.overload.loc.Locatable;
 
 /**
  * 2D grid-based pathfinding algorithm collection.<br>
- * This pathfinding class is NOT thread-safe.
+ * This pathfinding class is NOT thread-safe, searches are serialized on this instance.<br>
+ * Use {@link PathfindingService} to search from several threads at once.
  * @author Odell
  */
 public class Pathfinding implements AlgorithmSettings {
 	
 	protected final Algorithm algorithm;
 	protected final AlgorithmDefinition definition;
+	private Flags flags;
+	private SearchStats stats = null;
+	private SearchRecorder recorder = null;
+	private ComponentIndex components = null;
 	
 	/**
 	 * Creates a pathfinding provider given an algorithm type and flags.
@@ -27,6 +33,7 @@ public class Pathfinding implements AlgorithmSettings {
 		this.algorithm = alg;
 		this.definition = alg.newDefinition();
 		this.definition.setFlags(flags);
+		this.flags = flags;
 	}
 	
 	/**
@@ -45,6 +52,7 @@ public class Pathfinding implements AlgorithmSettings {
 	@Override
 	public void setFlags(Flags flags) {
 		this.definition.setFlags(flags);
+		this.flags = flags;
 	}
 
 	@Override
@@ -56,6 +64,99 @@ public class Pathfinding implements AlgorithmSettings {
 	public void setDiagonal(double diagonal) {
 		this.definition.setDiagonal(diagonal);
 	}
+
+	@Override
+	public void setWeight(double weight) {
+		this.definition.setWeight(weight);
+	}
+
+	@Override
+	public void setTieBreaking(TieBreaking tie) {
+		this.definition.setTieBreaking(tie);
+	}
+
+	@Override
+	public void setBounds(int width, int height) {
+		this.definition.setBounds(width, height);
+	}
+	
+	/**
+	 * Sets the landmark distances which tighten the heuristic, see {@link Landmarks}.<br>
+	 * The landmarks must be computed from the same flags, bounds, connectivity and diagonal cost as this pathfinder.
+	 * {@link Algorithm#D_STAR_LITE}, {@link Algorithm#DIAL} and the any-angle algorithms ignore the landmarks.
+	 * @param landmarks the landmarks, or null for the plain heuristic.
+	 * @throws IllegalArgumentException if the algorithm isn't grid-based.
+	 */
+	public void setLandmarks(final Landmarks landmarks) {
+		if (!(definition instanceof GridDefinition))
+			throw new IllegalArgumentException(algorithm + " doesn't support landmarks");
+		((GridDefinition) definition).setLandmarks(landmarks);
+	}
+	
+	/**
+	 * Returns how many nodes the last search expanded, which allows comparing the work done by different algorithms.
+	 * @return the number of nodes expanded by the last search.
+	 */
+	public synchronized int getExpanded() {
+		return definition.getExpanded();
+	}
+	
+	/**
+	 * Enables or disables the statistics of every search, which are off by default.<br>
+	 * While disabled the algorithms skip counting entirely, so searches cost the same as without statistics.
+	 * @param enabled whether to collect statistics.
+	 * @see #getStatistics()
+	 */
+	public synchronized void setStatistics(final boolean enabled) {
+		if (enabled == (stats != null))
+			return;
+		stats = enabled ? new SearchStats() : null;
+		definition.setStatistics(stats);
+		if (!enabled)
+			recorder = null;
+	}
+	
+	/**
+	 * Returns the statistics of the last search.
+	 * @return a copy of the statistics of the last search, or null if statistics are disabled.
+	 */
+	public synchronized SearchStats getStatistics() {
+		return stats != null ? new SearchStats(stats) : null;
+	}
+	
+	/**
+	 * Sets the recorder the statistics of every search are aggregated into, which enables statistics.
+	 * @param recorder the recorder, or null to stop recording while keeping statistics enabled.
+	 */
+	public synchronized void setRecorder(final SearchRecorder recorder) {
+		if (recorder != null)
+			setStatistics(true);
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * Sets the component index consulted before every search, unreachable destinations are then rejected
+	 * without expanding a single node.<br>
+	 * The index must be built from the same flags and connectivity as this pathfinder.
+	 * @param components the component index, or null to always search.
+	 * @see #invalidate(Rectangle)
+	 */
+	public synchronized void setComponents(final ComponentIndex components) {
+		this.components = components;
+	}
+	
+	/**
+	 * Notifies this pathfinder that the collision flags within the region have changed.<br>
+	 * Incremental algorithms repair their previous search on the next call to {@link #findPath(Locatable, Locatable)},
+	 * other algorithms always search from scratch. The component index, if any, is updated as well.
+	 * @param region the changed region.
+	 */
+	public synchronized void invalidate(final Rectangle region) {
+		if (components != null)
+			components.invalidate(region);
+		if (definition instanceof DynamicDefinition)
+			((DynamicDefinition) definition).invalidate(region);
+	}
 	
 	/**
 	 * Finds a path from the start to the end.
@@ -64,7 +165,36 @@ public class Pathfinding implements AlgorithmSettings {
 	 * @return a valid path to the destination, otherwise null if there was no path.
 	 */
 	public synchronized List<Locatable> findPath(final Locatable start, final Locatable end) {
-		return definition.findPath(start, end);
+		if (components != null && !components.connected(start, end)) {
+			if (stats != null) {
+				stats.reset();
+				stats.finish(0, 0L, false);
+				if (recorder != null)
+					recorder.record(stats);
+			}
+			return null;
+		}
+		if (stats == null)
+			return definition.findPath(start, end);
+		stats.reset();
+		final long begin = System.nanoTime();
+		final List<Locatable> path = definition.findPath(start, end);
+		stats.finish(definition.getExpanded(), System.nanoTime() - begin, path != null);
+		if (recorder != null)
+			recorder.record(stats);
+		return path;
+	}
+	
+	/**
+	 * Finds a path from the start to the end and smooths it into packed waypoints in line of sight of each other,
+	 * apart from adjacent steps of the path which are kept as found.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return the packed waypoints to the destination, otherwise null if there was no path.
+	 * @see Paths#smooth(Flags, int[])
+	 */
+	public synchronized int[] findWaypoints(final Locatable start, final Locatable end) {
+		return Paths.smooth(flags, Paths.pack(findPath(start, end)));
 	}
 	
 	/**
@@ -81,6 +211,22 @@ public class Pathfinding implements AlgorithmSettings {
 		public boolean blocked(final Locatable loc, final Locatable parent);
 	}
 	
+	/**
+	 * A collision flag provider which also weighs the terrain.<br>
+	 * Algorithms which support terrain costs multiply the cost of every move by the cost of the cell moved into,
+	 * others only test the flags. Costs should be at least 1 so the heuristics stay admissible.
+	 * @author Odell
+	 */
+	public interface CostFlags extends Flags {
+		/**
+		 * Returns the cost of moving into loc, a straight move costs this much and a diagonal move costs this much times the diagonal cost.
+		 * @param loc a locatable which isn't blocked.
+		 * @param parent the parent of loc, can be null.
+		 * @return the positive terrain cost of loc.
+		 */
+		public int getCost(final Locatable loc, final Locatable parent);
+	}
+	
 	/**
 	 * Algorithm set for this pathfinding collection.
 	 * @author Odell
@@ -102,6 +248,86 @@ public class Pathfinding implements AlgorithmSettings {
 			public AlgorithmDefinition newDefinition() {
 				return new JPSImpl();
 			}
+		}),
+		/**
+		 * {@link GridAStarImpl}
+		 */
+		ASTAR_GRID (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new GridAStarImpl();
+			}
+		}),
+		/**
+		 * {@link JPSBitscanImpl}
+		 */
+		JPS_BITSCAN (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new JPSBitscanImpl();
+			}
+		}),
+		/**
+		 * {@link JPSPlusImpl}
+		 */
+		JPS_PLUS (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new JPSPlusImpl();
+			}
+		}),
+		/**
+		 * {@link DStarLiteImpl}
+		 */
+		D_STAR_LITE (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new DStarLiteImpl();
+			}
+		}),
+		/**
+		 * {@link BidirectionalAStarImpl}
+		 */
+		BIDIRECTIONAL_ASTAR (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new BidirectionalAStarImpl();
+			}
+		}),
+		/**
+		 * {@link DialImpl}
+		 */
+		DIAL (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new DialImpl();
+			}
+		}),
+		/**
+		 * {@link ARAStarImpl}
+		 */
+		ARA_STAR (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new ARAStarImpl();
+			}
+		}),
+		/**
+		 * {@link ThetaStarImpl}
+		 */
+		THETA_STAR (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new ThetaStarImpl(false);
+			}
+		}),
+		/**
+		 * {@link ThetaStarImpl}, with lazy line of sight checks.
+		 */
+		LAZY_THETA_STAR (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new ThetaStarImpl(true);
+			}
+		}),
+		/**
+		 * {@link JPS4Impl}
+		 */
+		JPS4 (new AlgorithmAccessor() {
+			public AlgorithmDefinition newDefinition() {
+				return new JPS4Impl();
+			}
 		});
 		
 		private final AlgorithmAccessor accessor;
@@ -163,4 +389,59 @@ public class Pathfinding implements AlgorithmSettings {
 		
 	}
 	
+	/**
+	 * Tie-breaking between open nodes with equal <tt>f</tt>.<br>
+	 * The open list orders nodes by a single packed long, <tt>f</tt> rounded to float precision in the high bits
+	 * and the tie-breaker in the low bits, so comparisons are branch-free and the expansion order is bit-for-bit reproducible.
+	 * Nodes whose keys are still equal are ordered deterministically by the heap.
+	 * @author Odell
+	 */
+	public enum TieBreaking {
+		
+		/**
+		 * Equal <tt>f</tt> are ordered by location, row by row as {@link PNode#compareTo(PNode)}.
+		 */
+		LOCATION,
+		/**
+		 * Equal <tt>f</tt> prefer the higher <tt>g</tt>, which is the lower <tt>h</tt>,
+		 * so the search dives toward the destination instead of spreading over plateaus of open terrain.
+		 */
+		HIGH_G,
+		/**
+		 * Equal <tt>f</tt> prefer the lower <tt>g</tt>, breadth first.
+		 */
+		LOW_G;
+		
+		/**
+		 * Packs a key, <tt>f</tt> and <tt>g</tt> must not be negative.
+		 * @param location the location order, the cell index of grid algorithms.
+		 */
+		long key(final double f, final float g, final int location) {
+			final long high = (long) Float.floatToIntBits((float) f) << 32;
+			switch (this) {
+			case HIGH_G:
+				return high | (Integer.MAX_VALUE - Float.floatToIntBits(g));
+			case LOW_G:
+				return high | Float.floatToIntBits(g);
+			default:
+				return high | (location & 0xFFFFFFFFL);
+			}
+		}
+		
+		/**
+		 * Packs a key ordered by coordinates, which are compared modulo 65536.
+		 */
+		long key(final double f, final float g, final Locatable loc) {
+			return key(f, g, ((loc.getY() + 0x8000) << 16) | ((loc.getX() + 0x8000) & 0xFFFF));
+		}
+		
+		/**
+		 * Returns the <tt>f</tt> of a packed key.
+		 */
+		static double f(final long key) {
+			return Float.intBitsToFloat((int) (key >>> 32));
+		}
+		
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.List;
+
+import com.overload.loc.Locatable3D;
+
+/**
+ * 3D voxel-based pathfinding algorithm collection, for multi-level maps such as buildings and caves.<br>
+ * Voxels are searched with 6, 18 or 26-connected neighborhoods, a move costs its Euclidean length:
+ * 1 across a face, the square root of 2 across an edge and the square root of 3 across a corner.<br>
+ * This pathfinding class is NOT thread-safe, searches are serialized on this instance.
+ * @see Pathfinding
+ * @author Odell
+ */
+public class Pathfinding3D {
+
+	protected final Algorithm algorithm;
+	protected final VoxelDefinition definition;
+
+	/**
+	 * Creates a 3D pathfinding provider given an algorithm type and flags.
+	 * @param alg the algorithm implementation to use.
+	 * @param flags the collision flags.
+	 */
+	public Pathfinding3D(final Algorithm alg, final Flags flags) {
+		if (alg == null)
+			throw new IllegalArgumentException("algorithm can't be null");
+		this.algorithm = alg;
+		this.definition = alg.newDefinition();
+		this.definition.setFlags(flags);
+	}
+
+	/**
+	 * Returns the algorithm of this pathfinder.
+	 * @return the algorithm of this pathfinder.
+	 */
+	public final Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * Sets the collision flags for this pathfinder.
+	 * @param flags the collision flags for the algorithm implementation.
+	 */
+	public void setFlags(final Flags flags) {
+		this.definition.setFlags(flags);
+	}
+
+	/**
+	 * Sets the heuristics of this pathfinder, null allows the algorithm to choose one which suits the connectivity.
+	 * @param heur the heuristics for the algorithm implementation.
+	 */
+	public void setHeuristic(final Heuristic heur) {
+		this.definition.setHeuristic(heur);
+	}
+
+	/**
+	 * Sets the neighborhood searched around every voxel, 26-connected by default.
+	 * @param connectivity the neighborhood.
+	 */
+	public void setConnectivity(final Connectivity connectivity) {
+		if (connectivity == null)
+			throw new IllegalArgumentException("connectivity can't be null");
+		this.definition.setConnectivity(connectivity);
+	}
+
+	/**
+	 * Sets the bounds of the searched volume, locations outside of the bounds are considered blocked.
+	 * @param width the number of voxels along the X axis.
+	 * @param height the number of voxels along the Y axis.
+	 * @param depth the number of voxels along the Z axis.
+	 */
+	public void setBounds(final int width, final int height, final int depth) {
+		this.definition.setBounds(width, height, depth);
+	}
+
+	/**
+	 * Returns how many nodes the last search expanded, which allows comparing the work done by different algorithms.
+	 * @return the number of nodes expanded by the last search.
+	 */
+	public synchronized int getExpanded() {
+		return definition.getExpanded();
+	}
+
+	/**
+	 * Finds a path from the start to the end.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return a valid path to the destination, otherwise null if there was no path.
+	 */
+	public synchronized List<Locatable3D> findPath(final Locatable3D start, final Locatable3D end) {
+		return definition.findPath(start, end);
+	}
+
+	/**
+	 * A 3D collision flag provider.
+	 * @author Odell
+	 */
+	public interface Flags {
+		/**
+		 * Determines whether loc is blocked or not.<br>
+		 * @param loc a locatable which can be tested.
+		 * @param parent the parent of loc, can be null.
+		 * @return whether the given locatable is blocked or not.
+		 */
+		public boolean blocked(final Locatable3D loc, final Locatable3D parent);
+	}
+
+	/**
+	 * The neighborhoods of a voxel.
+	 * @author Odell
+	 */
+	public enum Connectivity {
+
+		/**
+		 * the voxels sharing a face.
+		 */
+		SIX (6),
+		/**
+		 * the voxels sharing a face or an edge.
+		 */
+		EIGHTEEN (18),
+		/**
+		 * the voxels sharing a face, an edge or a corner.
+		 */
+		TWENTY_SIX (26);
+
+		private final int neighbors;
+
+		Connectivity(final int neighbors) {
+			this.neighbors = neighbors;
+		}
+
+		/**
+		 * @return the number of neighbors of a voxel.
+		 */
+		public int getNeighbors() {
+			return neighbors;
+		}
+
+	}
+
+	/**
+	 * Algorithm set for this pathfinding collection.
+	 * @author Odell
+	 */
+	public enum Algorithm {
+
+		/**
+		 * {@link VoxelAStarImpl}
+		 */
+		ASTAR (new AlgorithmAccessor() {
+			public VoxelDefinition newDefinition() {
+				return new VoxelAStarImpl();
+			}
+		}),
+		/**
+		 * {@link VoxelJPSImpl}
+		 */
+		JUMP_POINT_SEARCH (new AlgorithmAccessor() {
+			public VoxelDefinition newDefinition() {
+				return new VoxelJPSImpl();
+			}
+		});
+
+		private final AlgorithmAccessor accessor;
+
+		Algorithm(AlgorithmAccessor accessor) {
+			this.accessor = accessor;
+		}
+
+		VoxelDefinition newDefinition() {
+			return accessor.newDefinition();
+		}
+
+		private interface AlgorithmAccessor {
+			VoxelDefinition newDefinition();
+		}
+
+	}
+
+	/**
+	 * 3D pathfinding heuristics.<br>
+	 * {@link #OCTILE} and {@link #EUCLIDEAN} are admissible for all three neighborhoods,
+	 * {@link #MANHATTAN} is only admissible for the 6-connected one and overestimates edge and corner moves,
+	 * so with the other neighborhoods it trades optimal paths for fewer expansions.
+	 * @author Odell
+	 */
+	public enum Heuristic {
+
+		/**
+		 * exact for the 6-connected neighborhood, inadmissible for the 18 and 26-connected neighborhoods.
+		 */
+		MANHATTAN (new HeuristicImpl() {
+			public double distance(int dx, int dy, int dz) {
+				return dx + dy + dz;
+			}
+		}),
+		/**
+		 * exact for the 26-connected neighborhood, corner moves first, then edge moves, then face moves.
+		 */
+		OCTILE (new HeuristicImpl() {
+			public double distance(int dx, int dy, int dz) {
+				final int max = Math.max(dx, Math.max(dy, dz)), min = Math.min(dx, Math.min(dy, dz));
+				final int mid = dx + dy + dz - max - min;
+				return VoxelDefinition.CORNER * min + VoxelDefinition.EDGE * (mid - min) + (max - mid);
+			}
+		}),
+		/**
+		 * the straight line distance, admissible for every neighborhood but less informed than {@link #OCTILE}.
+		 */
+		EUCLIDEAN (new HeuristicImpl() {
+			public double distance(int dx, int dy, int dz) {
+				return Math.sqrt((double) dx * dx + (double) dy * dy + (double) dz * dz);
+			}
+		});
+
+		private final HeuristicImpl impl;
+
+		Heuristic(HeuristicImpl impl) {
+			this.impl = impl;
+		}
+
+		/**
+		 * @return the distance between two locations which are the given absolute distances apart on each axis.
+		 */
+		double distance(int dx, int dy, int dz) {
+			return impl.distance(dx, dy, dz);
+		}
+
+		private interface HeuristicImpl {
+			double distance(final int dx, final int dy, final int dz);
+		}
+
+	}
+
+}
\ No newline at end of file
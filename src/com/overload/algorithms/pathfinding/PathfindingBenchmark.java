@@ -0,0 +1,421 @@
+package com.overload.algorithms.pathfinding;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.GridMaps;
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.loc.Locatable;
+import com.overload.util.Histogram;
+import com.overload.util.benchmarking.BenchmarkTask;
+import com.overload.util.benchmarking.Benchmarking;
+import com.overload.util.benchmarking.Timestamp;
+
+/**
+ * A scenario-driven benchmark of the grid pathfinding algorithms.<br>
+ * Every {@link Scenario} of a map is searched once per pass with an algorithm and heuristic, timed by {@link Benchmarking},
+ * whose warm up pass checks the cost of every path against the optimal cost of its scenario.
+ * Reports the throughput, the latency percentiles of single queries, the bytes allocated per query,
+ * the nodes expanded per query, and how many paths were missing, longer or shorter than the optimal cost.<br>
+ * Any-angle algorithms are expected to come out shorter, as are eight way algorithms on imported scenarios,
+ * whose costs never cut a corner. Allocations are measured per thread where the virtual machine supports it.
+ * @see Scenario
+ * @author Odell
+ */
+public class PathfindingBenchmark {
+
+	/**
+	 * the relative difference from the optimal cost which is still considered optimal.
+	 */
+	private static final double TOLERANCE = 1.0E-4;
+
+	private final BitGrid grid;
+	private final List<Scenario> scenarios;
+	private final boolean eight;
+	private final double diagonal;
+	private JumpTable table = null;
+
+	/**
+	 * Creates a benchmark of the scenarios of a map.
+	 * @param grid the collision grid of the map.
+	 * @param scenarios the scenarios to search.
+	 * @param eight whether to search eight or four way, which must match the scenarios.
+	 * @param diagonal the cost of diagonal movement, which must match the scenarios.
+	 */
+	public PathfindingBenchmark(final BitGrid grid, final List<Scenario> scenarios, final boolean eight, final double diagonal) {
+		if (grid == null)
+			throw new IllegalArgumentException("grid can't be null");
+		if (scenarios == null || scenarios.isEmpty())
+			throw new IllegalArgumentException("no scenarios");
+		this.grid = grid;
+		this.scenarios = scenarios;
+		this.eight = eight;
+		this.diagonal = diagonal;
+	}
+
+	/**
+	 * Benchmarks every algorithm which supports the movement of the scenarios, with every heuristic.
+	 * @param iterations the number of timed passes over the scenarios.
+	 * @return the results, in algorithm and heuristic order.
+	 */
+	public List<Result> runAll(final int iterations) {
+		final ArrayList<Result> results = new ArrayList<Result>();
+		for (final Algorithm alg : Algorithm.values()) {
+			if (!supports(alg, eight))
+				continue;
+			for (final Heuristic heur : Heuristic.values())
+				results.add(run(alg, heur, iterations));
+		}
+		return results;
+	}
+
+	/**
+	 * Benchmarks an algorithm with a heuristic.
+	 * @param alg the algorithm.
+	 * @param heur the heuristic.
+	 * @param iterations the number of timed passes over the scenarios.
+	 * @return the result, which only holds an error if the algorithm can't search this map.
+	 */
+	public Result run(final Algorithm alg, final Heuristic heur, final int iterations) {
+		if (iterations <= 0)
+			throw new IllegalArgumentException("iterations must be positive");
+		final Result result = new Result(alg, heur, scenarios.size());
+		final Pathfinding pf = new Pathfinding(alg, flags(alg));
+		pf.setEight(eight);
+		pf.setHeuristic(heur);
+		pf.setDiagonal(diagonal);
+		pf.setBounds(grid.getWidth(), grid.getHeight());
+		final Pass pass = new Pass(pf, result, iterations);
+		try {
+			final Map<BenchmarkTask, Timestamp> times = Benchmarking.benchmark(pass);
+			result.passNanos = times.get(pass).getNanoseconds();
+			result.allocated = pass.allocated < 0L ? -1L : pass.allocated / ((long) iterations * scenarios.size());
+		} catch (final IllegalStateException e) {
+			result.error = e.getMessage();
+		}
+		return result;
+	}
+
+	private Flags flags(final Algorithm alg) {
+		if (alg != Algorithm.JPS_PLUS)
+			return grid;
+		if (table == null)
+			table = JumpTable.compute(grid);
+		return table;
+	}
+
+	/**
+	 * Determines whether an algorithm supports eight or four way movement.
+	 */
+	static boolean supports(final Algorithm alg, final boolean eight) {
+		switch (alg) {
+		case JUMP_POINT_SEARCH:
+		case JPS_BITSCAN:
+		case JPS_PLUS:
+			return eight;
+		case JPS4:
+			return !eight;
+		default:
+			return true;
+		}
+	}
+
+	/**
+	 * Returns the cost of a path, steps between adjacent locations cost 1 or the diagonal cost,
+	 * longer any-angle segments cost their euclidean length.
+	 */
+	static double cost(final List<Locatable> path, final double diagonal) {
+		double cost = 0.0D;
+		for (int i = 1, size = path.size(); i < size; i++) {
+			final Locatable a = path.get(i - 1), b = path.get(i);
+			final int dx = Math.abs(b.getX() - a.getX()), dy = Math.abs(b.getY() - a.getY());
+			if (dx <= 1 && dy <= 1)
+				cost += dx + dy == 2 ? diagonal : dx + dy;
+			else
+				cost += Math.sqrt((double) dx * dx + (double) dy * dy);
+		}
+		return cost;
+	}
+
+	/**
+	 * Runs the benchmark over a map, either imported with its scenarios or generated.<br>
+	 * Usage: <tt>PathfindingBenchmark [map [scenarios]] [iterations]</tt>,
+	 * without a scenario file 1000 scenarios are generated for the map,
+	 * without a map the scenarios of an open, a random and a room map are generated.
+	 * Imported maps are searched eight way with a diagonal cost of the square root of two.
+	 * @param args the arguments.
+	 * @throws IOException if a file couldn't be read.
+	 */
+	public static void main(final String[] args) throws IOException {
+		int iterations = 5, files = args.length;
+		if (files > 0 && args[files - 1].matches("\\d+"))
+			iterations = Integer.parseInt(args[--files]);
+		final double diagonal = Math.sqrt(2.0D);
+		if (files > 0) {
+			final BitGrid grid = GridMaps.importMap(new File(args[0]));
+			final List<Scenario> scenarios = files > 1 ? Scenario.read(new File(args[1])) :
+				Scenario.generate(grid, new File(args[0]).getName(), 1000, true, diagonal, 1L);
+			report(args[0], new PathfindingBenchmark(grid, scenarios, true, diagonal).runAll(iterations));
+			return;
+		}
+		final BitGrid[] grids = { new BitGrid(256, 256), random(256, 256, 0.3D, 1L), rooms(256, 256, 16, 1L) };
+		final String[] names = { "open-256", "random30-256", "rooms16-256" };
+		for (int i = 0; i < grids.length; i++) {
+			for (final boolean eight : new boolean[] { true, false }) {
+				final List<Scenario> scenarios = Scenario.generate(grids[i], names[i], 1000, eight, diagonal, 1L);
+				report(names[i] + (eight ? " eight way" : " four way"), new PathfindingBenchmark(grids[i], scenarios, eight, diagonal).runAll(iterations));
+			}
+		}
+	}
+
+	private static void report(final String title, final List<Result> results) {
+		System.out.println(title);
+		System.out.println(String.format(Locale.ROOT, "%-20s %-10s %10s %9s %9s %9s %10s %10s %6s %6s %6s %8s",
+				"algorithm", "heuristic", "queries/s", "p50 us", "p99 us", "max us", "bytes/q", "expanded", "miss", "long", "short", "max err"));
+		for (final Result r : results)
+			System.out.println(r);
+		System.out.println();
+	}
+
+	/**
+	 * Generates a grid whose cells are blocked at random.
+	 */
+	private static BitGrid random(final int width, final int height, final double density, final long seed) {
+		final BitGrid grid = new BitGrid(width, height);
+		final Random random = new Random(seed);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (random.nextDouble() < density)
+					grid.set(x, y, true);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Generates a grid of square rooms, each with a door in its right and bottom walls.
+	 */
+	private static BitGrid rooms(final int width, final int height, final int size, final long seed) {
+		final BitGrid grid = new BitGrid(width, height);
+		final Random random = new Random(seed);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (x % size == size - 1 || y % size == size - 1)
+					grid.set(x, y, true);
+			}
+		}
+		for (int ry = 0; ry < height; ry += size) {
+			for (int rx = 0; rx < width; rx += size) {
+				final int right = rx + size - 1, bottom = ry + size - 1;
+				if (right < width - 1)
+					grid.set(right, Math.min(height - 1, ry + random.nextInt(size - 1)), false);
+				if (bottom < height - 1)
+					grid.set(Math.min(width - 1, rx + random.nextInt(size - 1)), bottom, false);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * One pass over every scenario, the first pass is the warm up of {@link Benchmarking} and checks the paths.
+	 * @author Odell
+	 */
+	private class Pass implements BenchmarkTask {
+
+		private final Pathfinding pf;
+		private final Result result;
+		private final int iterations;
+		private final com.sun.management.ThreadMXBean threads;
+		private boolean warm = false;
+		/**
+		 * the bytes allocated by the timed passes, or -1 if unsupported.
+		 */
+		private long allocated;
+
+		private Pass(final Pathfinding pf, final Result result, final int iterations) {
+			this.pf = pf;
+			this.result = result;
+			this.iterations = iterations;
+			final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			this.threads = bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported() ?
+					(com.sun.management.ThreadMXBean) bean : null;
+			this.allocated = threads != null ? 0L : -1L;
+		}
+
+		@Override
+		public int getIterationCount() {
+			return iterations;
+		}
+
+		@Override
+		public void prepare() {
+		}
+
+		@Override
+		public void execute() {
+			if (!warm) {
+				check();
+				warm = true;
+				return;
+			}
+			final Histogram latency = result.latency;
+			final long thread = Thread.currentThread().getId();
+			final long before = threads != null ? threads.getThreadAllocatedBytes(thread) : 0L;
+			for (int i = 0, size = scenarios.size(); i < size; i++) {
+				final Scenario s = scenarios.get(i);
+				final long start = System.nanoTime();
+				pf.findPath(s.getStart(), s.getGoal());
+				latency.record(System.nanoTime() - start);
+			}
+			if (threads != null)
+				allocated += threads.getThreadAllocatedBytes(thread) - before;
+		}
+
+		private void check() {
+			long expanded = 0L;
+			for (int i = 0, size = scenarios.size(); i < size; i++) {
+				final Scenario s = scenarios.get(i);
+				final List<Locatable> path = pf.findPath(s.getStart(), s.getGoal());
+				expanded += pf.getExpanded();
+				if (path == null) {
+					result.missing++;
+					continue;
+				}
+				final double optimal = s.getOptimal(), error = (cost(path, diagonal) - optimal) / Math.max(1.0D, optimal);
+				if (error > TOLERANCE)
+					result.longer++;
+				else if (error < -TOLERANCE)
+					result.shorter++;
+				result.maxError = Math.max(result.maxError, error);
+			}
+			result.expanded = (double) expanded / scenarios.size();
+		}
+
+	}
+
+	/**
+	 * The result of benchmarking an algorithm with a heuristic.
+	 * @author Odell
+	 */
+	public static class Result {
+
+		private final Algorithm algorithm;
+		private final Heuristic heuristic;
+		private final int queries;
+		private final Histogram latency = new Histogram();
+		private long passNanos = 0L, allocated = -1L;
+		private double expanded = 0.0D, maxError = 0.0D;
+		private int missing = 0, longer = 0, shorter = 0;
+		private String error = null;
+
+		private Result(final Algorithm algorithm, final Heuristic heuristic, final int queries) {
+			this.algorithm = algorithm;
+			this.heuristic = heuristic;
+			this.queries = queries;
+		}
+
+		/**
+		 * @return the algorithm benchmarked.
+		 */
+		public Algorithm getAlgorithm() {
+			return algorithm;
+		}
+
+		/**
+		 * @return the heuristic benchmarked.
+		 */
+		public Heuristic getHeuristic() {
+			return heuristic;
+		}
+
+		/**
+		 * @return the number of queries per pass.
+		 */
+		public int getQueries() {
+			return queries;
+		}
+
+		/**
+		 * @return the queries answered per second, averaged over the timed passes.
+		 */
+		public double getThroughput() {
+			return passNanos > 0L ? queries * 1.0E9D / passNanos : 0.0D;
+		}
+
+		/**
+		 * @return the latency of single queries in nanoseconds.
+		 */
+		public Histogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return the bytes allocated per query, or -1 if the virtual machine can't measure it.
+		 */
+		public long getAllocatedBytes() {
+			return allocated;
+		}
+
+		/**
+		 * @return the nodes expanded per query.
+		 */
+		public double getExpanded() {
+			return expanded;
+		}
+
+		/**
+		 * @return the number of queries which found no path.
+		 */
+		public int getMissing() {
+			return missing;
+		}
+
+		/**
+		 * @return the number of paths which cost more than the optimal cost.
+		 */
+		public int getLonger() {
+			return longer;
+		}
+
+		/**
+		 * @return the number of paths which cost less than the optimal cost.
+		 */
+		public int getShorter() {
+			return shorter;
+		}
+
+		/**
+		 * @return the highest cost above the optimal cost, relative to the optimal cost.
+		 */
+		public double getMaxError() {
+			return maxError;
+		}
+
+		/**
+		 * @return why the algorithm couldn't search the map, or null if it could.
+		 */
+		public String getError() {
+			return error;
+		}
+
+		@Override
+		public String toString() {
+			if (error != null)
+				return String.format(Locale.ROOT, "%-20s %-10s unsupported: %s", algorithm, heuristic, error);
+			return String.format(Locale.ROOT, "%-20s %-10s %10.0f %9.1f %9.1f %9.1f %10d %10.1f %6d %6d %6d %8.4f",
+					algorithm, heuristic, getThroughput(), latency.getPercentile(50.0D) / 1000.0D, latency.getPercentile(99.0D) / 1000.0D,
+					latency.getMax() / 1000.0D, allocated, expanded, missing, longer, shorter, maxError);
+		}
+
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.algorithms.pathfinding.Pathfinding.TieBreaking;
+import com.overload.loc.Locatable;
+
+/**
+ * A thread-safe pathfinding provider.<br>
+ * The settings are shared as an immutable snapshot, while every search runs on its own
+ * search context borrowed from a pool, so concurrent searches never contend on a lock.<br>
+ * The collision flags must be safe to read from several threads at once.
+ * @see Pathfinding
+ * @author Odell
+ */
+public class PathfindingService implements AlgorithmSettings {
+
+	/**
+	 * Below this many queries a batch is searched sequentially instead of being split further.
+	 */
+	private static final int BATCH_THRESHOLD = 4;
+
+	protected final Algorithm algorithm;
+	private final ForkJoinPool pool;
+	private final ConcurrentLinkedQueue<Context> contexts;
+	private volatile Settings settings;
+	private volatile SearchRecorder recorder = null;
+
+	/**
+	 * Creates a pathfinding service which runs asynchronous searches on the common fork join pool.
+	 * @param alg the algorithm implementation to use.
+	 * @param flags the collision flags.
+	 */
+	public PathfindingService(final Algorithm alg, final Flags flags) {
+		this(alg, flags, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a pathfinding service which runs asynchronous searches on the given pool.
+	 * @param alg the algorithm implementation to use.
+	 * @param flags the collision flags.
+	 * @param pool the pool to run asynchronous and batched searches on.
+	 */
+	public PathfindingService(final Algorithm alg, final Flags flags, final ForkJoinPool pool) {
+		if (alg == null)
+			throw new IllegalArgumentException("algorithm can't be null");
+		if (pool == null)
+			throw new IllegalArgumentException("pool can't be null");
+		this.algorithm = alg;
+		this.pool = pool;
+		this.contexts = new ConcurrentLinkedQueue<Context>();
+		this.settings = new Settings(flags, null, null, false, 1.0D, 1.0D, 0, 0);
+	}
+
+	/**
+	 * Returns the algorithm of this service.
+	 * @return the algorithm of this service.
+	 */
+	public final Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	@Override
+	public synchronized void setEight(boolean eight) {
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setFlags(Flags flags) {
+		final Settings s = settings;
+		settings = new Settings(flags, s.heur, s.tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setHeuristic(Heuristic heur) {
+		final Settings s = settings;
+		settings = new Settings(s.flags, heur, s.tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setDiagonal(double diagonal) {
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setWeight(double weight) {
+		if (weight < 1.0D)
+			throw new IllegalArgumentException("weight must be at least 1");
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, s.diagonal, weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setTieBreaking(TieBreaking tie) {
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, tie, s.eight, s.diagonal, s.weight, s.width, s.height);
+	}
+
+	@Override
+	public synchronized void setBounds(int width, int height) {
+		if (width <= 0 || height <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		final Settings s = settings;
+		settings = new Settings(s.flags, s.heur, s.tie, s.eight, s.diagonal, s.weight, width, height);
+	}
+
+	/**
+	 * Sets the recorder the statistics of every search are aggregated into, searches on several threads record into it concurrently.<br>
+	 * Without a recorder the algorithms skip counting entirely.
+	 * @param recorder the recorder, or null to stop recording.
+	 */
+	public void setRecorder(final SearchRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Finds a path from the start to the end on the calling thread.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return a valid path to the destination, otherwise null if there was no path.
+	 */
+	public List<Locatable> findPath(final Locatable start, final Locatable end) {
+		final Context context = borrow();
+		try {
+			final SearchRecorder recorder = context.recorder;
+			if (recorder == null)
+				return context.definition.findPath(start, end);
+			final SearchStats stats = context.stats;
+			stats.reset();
+			final long begin = System.nanoTime();
+			final List<Locatable> path = context.definition.findPath(start, end);
+			stats.finish(context.definition.getExpanded(), System.nanoTime() - begin, path != null);
+			recorder.record(stats);
+			return path;
+		} finally {
+			contexts.offer(context);
+		}
+	}
+
+	/**
+	 * Finds a path from the start to the end on this service's pool.
+	 * @param start the starting location.
+	 * @param end the destination location.
+	 * @return a future completed with a valid path to the destination, or null if there was no path.
+	 */
+	public CompletableFuture<List<Locatable>> findPathAsync(final Locatable start, final Locatable end) {
+		return CompletableFuture.supplyAsync(new Supplier<List<Locatable>>() {
+			public List<Locatable> get() {
+				return findPath(start, end);
+			}
+		}, pool);
+	}
+
+	/**
+	 * Finds a path for every start/end pair, fanning the searches out across this service's pool.<br>
+	 * Blocks until every search has finished.
+	 * @param starts the starting locations.
+	 * @param ends the destination locations, paired with the starting location at the same index.
+	 * @return the paths in query order, an element is null if there was no path for that pair.
+	 */
+	public List<List<Locatable>> findPaths(final List<? extends Locatable> starts, final List<? extends Locatable> ends) {
+		if (starts.size() != ends.size())
+			throw new IllegalArgumentException("starts and ends must be the same size");
+		@SuppressWarnings("unchecked")
+		final List<Locatable>[] paths = (List<Locatable>[]) new List<?>[starts.size()];
+		pool.invoke(new Batch(starts, ends, paths, 0, paths.length));
+		return new ArrayList<List<Locatable>>(Arrays.asList(paths));
+	}
+
+	/**
+	 * Takes an idle search context from the pool, or creates one, and brings its settings up to date.
+	 */
+	private Context borrow() {
+		Context context = contexts.poll();
+		if (context == null)
+			context = new Context(algorithm.newDefinition());
+		final Settings s = settings;
+		if (context.applied != s) {
+			s.apply(context.definition);
+			context.applied = s;
+		}
+		final SearchRecorder r = recorder;
+		if (context.recorder != r) {
+			context.definition.setStatistics(r != null ? context.stats : null);
+			context.recorder = r;
+		}
+		return context;
+	}
+
+	/**
+	 * A search context, only ever used by one thread at a time.
+	 * @author Odell
+	 */
+	private static class Context {
+
+		private final AlgorithmDefinition definition;
+		private final SearchStats stats = new SearchStats();
+		private Settings applied = null;
+		private SearchRecorder recorder = null;
+
+		private Context(final AlgorithmDefinition definition) {
+			this.definition = definition;
+		}
+
+	}
+
+	/**
+	 * An immutable snapshot of the algorithm settings.
+	 * @author Odell
+	 */
+	private static class Settings {
+
+		private final Flags flags;
+		private final Heuristic heur;
+		private final TieBreaking tie;
+		private final boolean eight;
+		private final double diagonal, weight;
+		private final int width, height;
+
+		private Settings(final Flags flags, final Heuristic heur, final TieBreaking tie, final boolean eight, final double diagonal, final double weight, final int width, final int height) {
+			this.flags = flags;
+			this.heur = heur;
+			this.tie = tie;
+			this.eight = eight;
+			this.diagonal = diagonal;
+			this.weight = weight;
+			this.width = width;
+			this.height = height;
+		}
+
+		private void apply(final AlgorithmDefinition def) {
+			def.setFlags(flags);
+			def.setHeuristic(heur);
+			def.setTieBreaking(tie);
+			def.setEight(eight);
+			def.setDiagonal(diagonal);
+			def.setWeight(weight);
+			if (width > 0 && height > 0)
+				def.setBounds(width, height);
+		}
+
+	}
+
+	/**
+	 * Searches a range of a batch, splitting it in half until it's small enough.
+	 * @author Odell
+	 */
+	private class Batch extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<? extends Locatable> starts, ends;
+		private final List<Locatable>[] paths;
+		private final int from, to;
+
+		private Batch(final List<? extends Locatable> starts, final List<? extends Locatable> ends, final List<Locatable>[] paths, final int from, final int to) {
+			this.starts = starts;
+			this.ends = ends;
+			this.paths = paths;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= BATCH_THRESHOLD) {
+				for (int i = from; i < to; i++)
+					paths[i] = findPath(starts.get(i), ends.get(i));
+			} else {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new Batch(starts, ends, paths, from, mid), new Batch(starts, ends, paths, mid, to));
+			}
+		}
+
+	}
+
+}
\ No newline at end of file
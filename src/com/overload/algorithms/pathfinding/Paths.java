@@ -0,0 +1,235 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.Flags;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Path post-processing utilities.<br>
+ * A path can be packed into an <tt>int[]</tt>, one int per location with the X position in the high 16 bits
+ * and the Y position in the low 16 bits, which is far smaller than a list of nodes to keep or send.<br>
+ * A path can also be smoothed into waypoints by string pulling, every location which the previous waypoint
+ * can see past is dropped, using supercover line of sight tests against the collision flags.
+ * @author Odell
+ */
+public final class Paths {
+
+	private Paths() {
+	}
+
+	/**
+	 * Packs a location into an int.
+	 * @param x the X position, which must fit in a short.
+	 * @param y the Y position, which must fit in a short.
+	 * @return the packed location.
+	 * @throws IllegalArgumentException if a position doesn't fit in a short.
+	 */
+	public static int pack(final int x, final int y) {
+		if (x != (short) x || y != (short) y)
+			throw new IllegalArgumentException("location (" + x + ", " + y + ") can't be packed");
+		return (x << 16) | (y & 0xFFFF);
+	}
+
+	/**
+	 * @param packed a packed location.
+	 * @return the X position of the packed location.
+	 */
+	public static int unpackX(final int packed) {
+		return packed >> 16;
+	}
+
+	/**
+	 * @param packed a packed location.
+	 * @return the Y position of the packed location.
+	 */
+	public static int unpackY(final int packed) {
+		return (short) packed;
+	}
+
+	/**
+	 * Packs every location of a path.
+	 * @param path the path to pack, can be null.
+	 * @return the packed path, or null if the path was null.
+	 */
+	public static int[] pack(final List<? extends Locatable> path) {
+		if (path == null)
+			return null;
+		final int[] packed = new int[path.size()];
+		for (int i = 0; i < packed.length; i++) {
+			final Locatable loc = path.get(i);
+			packed[i] = pack(loc.getX(), loc.getY());
+		}
+		return packed;
+	}
+
+	/**
+	 * Unpacks every location of a packed path.
+	 * @param packed the packed path, can be null.
+	 * @return the path, or null if the packed path was null.
+	 */
+	public static List<Locatable> unpack(final int[] packed) {
+		if (packed == null)
+			return null;
+		final ArrayList<Locatable> path = new ArrayList<Locatable>(packed.length);
+		for (final int p : packed)
+			path.add(new Node(unpackX(p), unpackY(p)));
+		return path;
+	}
+
+	/**
+	 * Tests whether the straight line between the centers of two cells is clear.<br>
+	 * Every cell the line touches is tested (supercover), where the line passes exactly through a corner
+	 * both cells beside the corner must be clear, so the line never squeezes between two blocked cells.
+	 * Each cell is tested with the previous cell on the line as its parent, the first cell isn't tested.
+	 * @param flags the collision flags.
+	 * @param x0 the X position of the first cell.
+	 * @param y0 the Y position of the first cell.
+	 * @param x1 the X position of the last cell.
+	 * @param y1 the Y position of the last cell.
+	 * @return whether every cell after the first one on the line is clear.
+	 */
+	public static boolean lineOfSight(final Flags flags, final int x0, final int y0, final int x1, final int y1) {
+		return new Ray(flags).clear(x0, y0, x1, y1);
+	}
+
+	/**
+	 * Smooths a path into waypoints, each waypoint is in line of sight of the next one,
+	 * except where they are adjacent steps of the input path, which are kept as they are without being tested.
+	 * A diagonal step the search took past a blocked corner cell thus stays in the waypoints,
+	 * even though the line of sight wouldn't pass that corner.<br>
+	 * Terrain costs are ignored, a smoothed path may cross cells the search avoided because of their cost.
+	 * @param flags the collision flags.
+	 * @param path the connected path to smooth, can be null.
+	 * @return the waypoints, always including the first and last location, or null if the path was null.
+	 * @see #lineOfSight(Flags, int, int, int, int)
+	 */
+	public static List<Locatable> smooth(final Flags flags, final List<? extends Locatable> path) {
+		if (path == null)
+			return null;
+		final int n = path.size();
+		final int[] xs = new int[n], ys = new int[n];
+		for (int i = 0; i < n; i++) {
+			final Locatable loc = path.get(i);
+			xs[i] = loc.getX();
+			ys[i] = loc.getY();
+		}
+		final int[] kept = new int[n];
+		final int count = new Ray(flags).pull(xs, ys, kept);
+		final ArrayList<Locatable> waypoints = new ArrayList<Locatable>(count);
+		for (int i = 0; i < count; i++)
+			waypoints.add(path.get(kept[i]));
+		return waypoints;
+	}
+
+	/**
+	 * Smooths a packed path into packed waypoints, each waypoint is in line of sight of the next one,
+	 * except where they are adjacent steps of the input path.
+	 * @param flags the collision flags.
+	 * @param packed the packed connected path to smooth, can be null.
+	 * @return the packed waypoints, always including the first and last location, or null if the path was null.
+	 * @see #smooth(Flags, List)
+	 */
+	public static int[] smooth(final Flags flags, final int[] packed) {
+		if (packed == null)
+			return null;
+		final int n = packed.length;
+		final int[] xs = new int[n], ys = new int[n];
+		for (int i = 0; i < n; i++) {
+			xs[i] = unpackX(packed[i]);
+			ys[i] = unpackY(packed[i]);
+		}
+		final int[] kept = new int[n];
+		final int count = new Ray(flags).pull(xs, ys, kept);
+		final int[] waypoints = new int[count];
+		for (int i = 0; i < count; i++)
+			waypoints[i] = packed[kept[i]];
+		return waypoints;
+	}
+
+	/**
+	 * Line of sight tests against one set of flags, reusing its probe nodes.<br>
+	 * Searches override {@link #blocked(int, int, int, int)} to test cells their own way.
+	 * @author Odell
+	 */
+	static class Ray {
+
+		private final Flags flags;
+		private final BitGrid grid;
+		private final Node probe = new Node(0, 0), probeParent = new Node(0, 0);
+
+		Ray(final Flags flags) {
+			this.flags = flags;
+			this.grid = flags instanceof BitGrid ? (BitGrid) flags : null;
+		}
+
+		/**
+		 * Pulls the path taut, keeping a location only where the last kept location can't see past it.
+		 * @param kept filled with the indices of the kept locations.
+		 * @return the number of kept locations.
+		 */
+		int pull(final int[] xs, final int[] ys, final int[] kept) {
+			final int n = xs.length;
+			if (n <= 2) {
+				for (int i = 0; i < n; i++)
+					kept[i] = i;
+				return n;
+			}
+			int count = 0, anchor = 0;
+			kept[count++] = 0;
+			for (int i = 2; i < n; i++) {
+				if (!clear(xs[anchor], ys[anchor], xs[i], ys[i])) {
+					anchor = i - 1;
+					kept[count++] = anchor;
+				}
+			}
+			if (kept[count - 1] != n - 1)
+				kept[count++] = n - 1;
+			return count;
+		}
+
+		/**
+		 * Tests whether every cell after the first one on the supercover line between two cells is clear.
+		 * @see Paths#lineOfSight(Flags, int, int, int, int)
+		 */
+		boolean clear(int x, int y, final int x1, final int y1) {
+			int dx = Math.abs(x1 - x), dy = Math.abs(y1 - y);
+			final int sx = x1 > x ? 1 : -1, sy = y1 > y ? 1 : -1;
+			int error = dx - dy;
+			dx <<= 1;
+			dy <<= 1;
+			for (int n = (dx + dy) >> 1; n > 0; n--) {
+				if (error > 0) { // the line leaves the cell through a vertical side
+					if (blocked(x + sx, y, x, y))
+						return false;
+					x += sx;
+					error -= dy;
+				} else if (error < 0) { // through a horizontal side
+					if (blocked(x, y + sy, x, y))
+						return false;
+					y += sy;
+					error += dx;
+				} else { // exactly through the corner
+					if (blocked(x + sx, y, x, y) || blocked(x, y + sy, x, y) || blocked(x + sx, y + sy, x, y))
+						return false;
+					x += sx;
+					y += sy;
+					error += dx - dy;
+					n--;
+				}
+			}
+			return true;
+		}
+
+		boolean blocked(final int x, final int y, final int px, final int py) {
+			if (grid != null)
+				return grid.blocked(x, y);
+			return flags != null && flags.blocked(probe.set(x, y), probeParent.set(px, py));
+		}
+
+	}
+
+}
\ No newline at end of file
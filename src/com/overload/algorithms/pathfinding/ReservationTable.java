@@ -0,0 +1,159 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.overload.loc.Locatable;
+
+/**
+ * A space-time reservation table, which records the agent occupying a cell at every time step.<br>
+ * Reservations are claimed atomically, so agents planned on several threads at once never share a cell:
+ * a path is reserved whole or not at all, and a plan which lost a race to another agent is planned again.
+ * Agents swapping cells between two time steps are rejected as well.<br>
+ * Locations must fit in shorts, see {@link Paths#pack(int, int)}. Old time steps should be dropped
+ * with {@link #clearBefore(int)} as time passes.
+ * @see CooperativePathfinding
+ * @author Odell
+ */
+public class ReservationTable {
+
+	/**
+	 * the agent reserving each packed (x, y, t).
+	 */
+	private final ConcurrentHashMap<Long, Integer> owners = new ConcurrentHashMap<Long, Integer>();
+
+	/**
+	 * Returns the agent which reserved a cell at a time step.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @param time the time step.
+	 * @return the agent, or -1 if the cell is free.
+	 */
+	public int getOwner(final int x, final int y, final int time) {
+		final Integer owner = owners.get(key(x, y, time));
+		return owner != null ? owner : -1;
+	}
+
+	/**
+	 * Determines whether an agent can occupy a cell at a time step.
+	 * @param agent the agent.
+	 * @return <tt>true</tt> if the cell is free or already reserved by the agent.
+	 */
+	public boolean available(final int agent, final int x, final int y, final int time) {
+		final int owner = getOwner(x, y, time);
+		return owner < 0 || owner == agent;
+	}
+
+	/**
+	 * Determines whether an agent can move between two cells from a time step to the next,
+	 * which is when the destination is available and no other agent moves the opposite way.
+	 * @param agent the agent.
+	 * @return <tt>true</tt> if the move is free.
+	 */
+	public boolean available(final int agent, final int x, final int y, final int nx, final int ny, final int time) {
+		if (!available(agent, nx, ny, time + 1))
+			return false;
+		if (x == nx && y == ny)
+			return true;
+		final int other = getOwner(nx, ny, time);
+		return other < 0 || other == agent || getOwner(x, y, time + 1) != other;
+	}
+
+	/**
+	 * Reserves a path for an agent, one location per time step, unless any step conflicts with another agent.<br>
+	 * Steps already reserved by the agent are kept, the steps claimed by a failed call are released again.
+	 * @param agent the agent, a non-negative id.
+	 * @param path the locations of the agent at consecutive time steps.
+	 * @param time the time step of the first location.
+	 * @return <tt>true</tt> if the whole path was reserved, otherwise <tt>false</tt> and nothing was reserved.
+	 */
+	public boolean reserve(final int agent, final List<? extends Locatable> path, final int time) {
+		if (agent < 0)
+			throw new IllegalArgumentException("agent must not be negative");
+		final Integer id = agent;
+		final int size = path.size();
+		final boolean[] claimed = new boolean[size];
+		int i = 0;
+		for (; i < size; i++) {
+			final Locatable loc = path.get(i);
+			final Integer owner = owners.putIfAbsent(key(loc.getX(), loc.getY(), time + i), id);
+			if (owner != null && owner.intValue() != agent)
+				break;
+			claimed[i] = owner == null;
+		}
+		// every claim is published before the swaps are checked, so of two racing agents at least one sees the other
+		if (i == size) {
+			for (i = 1; i < size; i++) {
+				final Locatable from = path.get(i - 1), to = path.get(i);
+				if (!available(agent, from.getX(), from.getY(), to.getX(), to.getY(), time + i - 1))
+					break;
+			}
+			if (i == size)
+				return true;
+			i = size;
+		}
+		for (int j = 0; j < i; j++) {
+			if (claimed[j]) {
+				final Locatable loc = path.get(j);
+				owners.remove(key(loc.getX(), loc.getY(), time + j), id);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Releases the reservation of a cell at a time step, if the agent holds it.
+	 * @param agent the agent which reserved the cell.
+	 * @param x the X position of the cell.
+	 * @param y the Y position of the cell.
+	 * @param time the time step.
+	 */
+	public void release(final int agent, final int x, final int y, final int time) {
+		owners.remove(key(x, y, time), agent);
+	}
+
+	/**
+	 * Releases the reservations of a path, from the given time step on.
+	 * @param agent the agent which reserved the path.
+	 * @param path the locations of the agent at consecutive time steps.
+	 * @param time the time step of the first location.
+	 */
+	public void release(final int agent, final List<? extends Locatable> path, final int time) {
+		final Integer id = agent;
+		for (int i = 0, size = path.size(); i < size; i++) {
+			final Locatable loc = path.get(i);
+			owners.remove(key(loc.getX(), loc.getY(), time + i), id);
+		}
+	}
+
+	/**
+	 * Drops every reservation before a time step.
+	 * @param time the first time step to keep.
+	 */
+	public void clearBefore(final int time) {
+		for (final Iterator<Long> it = owners.keySet().iterator(); it.hasNext(); ) {
+			if ((int) (it.next() >> 32) < time)
+				it.remove();
+		}
+	}
+
+	/**
+	 * Drops every reservation.
+	 */
+	public void clear() {
+		owners.clear();
+	}
+
+	/**
+	 * @return the number of reserved cells over all time steps.
+	 */
+	public int size() {
+		return owners.size();
+	}
+
+	private static Long key(final int x, final int y, final int time) {
+		return ((long) time << 32) | (Paths.pack(x, y) & 0xFFFFFFFFL);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.PathSearch.Status;
+import com.overload.loc.Locatable;
+import com.overload.util.NanoTimer;
+
+/**
+ * A pathfinding algorithm model whose searches can be split into budgeted slices.<br>
+ * The search state is kept between slices until the next search begins.
+ * @author Odell
+ */
+interface ResumableDefinition extends AlgorithmDefinition {
+
+	/**
+	 * Begins a search from the start to the end, without expanding any node yet.
+	 * @param start start location
+	 * @param end destination location
+	 */
+	public void begin(final Locatable start, final Locatable end);
+
+	/**
+	 * Continues the current search until it ends or a budget runs out.
+	 * @param maxExpansions the most nodes to expand in this slice.
+	 * @param deadline the timer which stops this slice once inactive, can be null.
+	 * @return the status of the search after this slice.
+	 */
+	public Status resume(final int maxExpansions, final NanoTimer deadline);
+
+	/**
+	 * Returns the path found by the current search, or the best partial path toward the node closest to the destination.
+	 * @return the path or partial path, or null if the search couldn't begin.
+	 */
+	public List<Locatable> getPath();
+
+	/**
+	 * Returns the suboptimality bound of the path found, its cost is at most this many times the optimal cost.
+	 * @return the suboptimality bound, or positive infinity if no path was found yet.
+	 */
+	public double getBound();
+
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package com.overload.algorithms.pathfinding;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * A pathfinding query with its known optimal cost, one line of a scenario file.<br>
+ * Scenario files are in the format of the grid pathfinding benchmarks by Sturtevant, a <tt>version</tt> line
+ * followed by one tab separated line per query: bucket, map, map width, map height, start X, start Y, goal X, goal Y
+ * and the optimal cost. Their costs assume octile movement which never cuts a blocked corner,
+ * while eight way movement here does, so paths found here may be slightly shorter.
+ * {@link #generate(BitGrid, String, int, boolean, double, long)} computes the costs with the same movement rules instead.
+ * @see com.overload.algorithms.GridMaps
+ * @author Odell
+ */
+public class Scenario {
+
+	private final int bucket;
+	private final String map;
+	private final int width, height;
+	private final Node start, goal;
+	private final double optimal;
+
+	/**
+	 * Creates a scenario.
+	 * @param bucket the bucket of the scenario, usually its optimal cost divided by 4.
+	 * @param map the name of the map.
+	 * @param width the width of the map.
+	 * @param height the height of the map.
+	 * @param start the starting location.
+	 * @param goal the destination location.
+	 * @param optimal the cost of the shortest path.
+	 */
+	public Scenario(final int bucket, final String map, final int width, final int height,
+			final Locatable start, final Locatable goal, final double optimal) {
+		this.bucket = bucket;
+		this.map = map;
+		this.width = width;
+		this.height = height;
+		this.start = new Node(start);
+		this.goal = new Node(goal);
+		this.optimal = optimal;
+	}
+
+	/**
+	 * Reads a scenario file.
+	 * @param file the scenario file.
+	 * @return the scenarios in file order.
+	 * @throws IOException if the file couldn't be read or isn't a valid scenario file.
+	 */
+	public static List<Scenario> read(final File file) throws IOException {
+		final Reader in = new FileReader(file);
+		try {
+			return read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads scenarios, the reader isn't closed.
+	 * @param reader the scenario text.
+	 * @return the scenarios in order.
+	 * @throws IOException if the text couldn't be read or isn't valid.
+	 */
+	public static List<Scenario> read(final Reader reader) throws IOException {
+		final BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+		final ArrayList<Scenario> scenarios = new ArrayList<Scenario>();
+		String line;
+		for (int n = 1; (line = in.readLine()) != null; n++) {
+			if (line.trim().isEmpty() || line.startsWith("version"))
+				continue;
+			final String[] parts = line.split("\t");
+			if (parts.length != 9)
+				throw new IOException("invalid scenario on line " + n);
+			try {
+				scenarios.add(new Scenario(Integer.parseInt(parts[0].trim()), parts[1].trim(),
+						Integer.parseInt(parts[2].trim()), Integer.parseInt(parts[3].trim()),
+						new Node(Integer.parseInt(parts[4].trim()), Integer.parseInt(parts[5].trim())),
+						new Node(Integer.parseInt(parts[6].trim()), Integer.parseInt(parts[7].trim())),
+						Double.parseDouble(parts[8].trim())));
+			} catch (final NumberFormatException e) {
+				throw new IOException("invalid scenario on line " + n);
+			}
+		}
+		return scenarios;
+	}
+
+	/**
+	 * Writes scenarios to a file, which can be read back with {@link #read(File)}.
+	 * @param scenarios the scenarios to write.
+	 * @param file the file to write.
+	 * @throws IOException if the file couldn't be written.
+	 */
+	public static void write(final List<Scenario> scenarios, final File file) throws IOException {
+		final BufferedWriter out = new BufferedWriter(new FileWriter(file), 1 << 16);
+		try {
+			out.write("version 1\n");
+			for (final Scenario s : scenarios) {
+				out.write(s.bucket + "\t" + s.map + "\t" + s.width + "\t" + s.height + "\t" +
+						s.start.getX() + "\t" + s.start.getY() + "\t" + s.goal.getX() + "\t" + s.goal.getY() + "\t" +
+						String.format(Locale.ROOT, "%.8f", s.optimal) + "\n");
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Generates scenarios between random open cells of a grid which are connected,
+	 * the optimal costs are computed with a {@link FlowField} of each goal.
+	 * @param grid the collision grid.
+	 * @param map the name of the map.
+	 * @param count the number of scenarios.
+	 * @param eight whether movement is eight or four way.
+	 * @param diagonal the cost of diagonal movement.
+	 * @param seed the random seed, the same seed generates the same scenarios.
+	 * @return the scenarios, ordered by bucket.
+	 * @throws IllegalArgumentException if the grid has fewer than two connected open cells.
+	 */
+	public static List<Scenario> generate(final BitGrid grid, final String map, final int count,
+			final boolean eight, final double diagonal, final long seed) {
+		final int width = grid.getWidth(), height = grid.getHeight();
+		final Random random = new Random(seed);
+		final ArrayList<Scenario> scenarios = new ArrayList<Scenario>(count);
+		for (int misses = 0; scenarios.size() < count; ) {
+			final Node start = open(grid, random), goal = open(grid, random);
+			if (start == null || goal == null)
+				throw new IllegalArgumentException("grid has no open cells");
+			final double optimal = start.equals(goal) ? Double.POSITIVE_INFINITY :
+				FlowField.compute(grid, width, height, eight, diagonal, Collections.singletonList(goal)).getDistance(start.getX(), start.getY());
+			if (optimal == Double.POSITIVE_INFINITY) {
+				if (++misses > 64 * (count + 1))
+					throw new IllegalArgumentException("grid has too few connected open cells");
+				continue;
+			}
+			scenarios.add(new Scenario((int) (optimal / 4.0D), map, width, height, start, goal, optimal));
+		}
+		Collections.sort(scenarios, new Comparator<Scenario>() {
+			public int compare(final Scenario a, final Scenario b) {
+				return Integer.compare(a.bucket, b.bucket);
+			}
+		});
+		return scenarios;
+	}
+
+	/**
+	 * Picks a random open cell, or null if 1024 picks were all blocked.
+	 */
+	private static Node open(final BitGrid grid, final Random random) {
+		for (int i = 0; i < 1024; i++) {
+			final int x = random.nextInt(grid.getWidth()), y = random.nextInt(grid.getHeight());
+			if (!grid.blocked(x, y))
+				return new Node(x, y);
+		}
+		return null;
+	}
+
+	/**
+	 * @return the bucket of this scenario.
+	 */
+	public int getBucket() {
+		return bucket;
+	}
+
+	/**
+	 * @return the name of the map.
+	 */
+	public String getMap() {
+		return map;
+	}
+
+	/**
+	 * @return the width of the map.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return the height of the map.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return the starting location.
+	 */
+	public Node getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the destination location.
+	 */
+	public Node getGoal() {
+		return goal;
+	}
+
+	/**
+	 * @return the cost of the shortest path.
+	 */
+	public double getOptimal() {
+		return optimal;
+	}
+
+	@Override
+	public String toString() {
+		return "Scenario[" + map + " " + start + " -> " + goal + ", optimal=" + optimal + "]";
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.overload.util.Histogram;
+
+/**
+ * A lock-free aggregate of search statistics, with a percentile {@link Histogram} per metric.<br>
+ * One recorder can be shared by every pathfinder and service of a process,
+ * searches record into it concurrently without contending on a lock.
+ * The histograms can be read at any time and exported to a metrics pipeline.
+ * @see Pathfinding#setRecorder(SearchRecorder)
+ * @see PathfindingService#setRecorder(SearchRecorder)
+ * @author Odell
+ */
+public class SearchRecorder {
+
+	private final LongAdder failures = new LongAdder();
+	private final Histogram nanos = new Histogram(), expanded = new Histogram(), generated = new Histogram(),
+			reparented = new Histogram(), peakOpen = new Histogram(), blocked = new Histogram();
+
+	/**
+	 * Records the statistics of a search.
+	 * @param stats the statistics of the search.
+	 */
+	public void record(final SearchStats stats) {
+		if (!stats.isFound())
+			failures.increment();
+		nanos.record(stats.getNanos());
+		expanded.record(stats.getExpanded());
+		generated.record(stats.getGenerated());
+		reparented.record(stats.getReparented());
+		peakOpen.record(stats.getPeakOpen());
+		blocked.record(stats.getBlockedCalls());
+	}
+
+	/**
+	 * @return the number of searches recorded.
+	 */
+	public long getSearches() {
+		return nanos.getCount();
+	}
+
+	/**
+	 * @return the number of searches recorded which didn't find a path.
+	 */
+	public long getFailures() {
+		return failures.sum();
+	}
+
+	/**
+	 * @return the wall time of the searches in nanoseconds.
+	 */
+	public Histogram getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return the nodes expanded per search.
+	 */
+	public Histogram getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return the nodes generated per search.
+	 */
+	public Histogram getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return the nodes reparented per search.
+	 */
+	public Histogram getReparented() {
+		return reparented;
+	}
+
+	/**
+	 * @return the peak open list size per search.
+	 */
+	public Histogram getPeakOpen() {
+		return peakOpen;
+	}
+
+	/**
+	 * @return the collision tests per search.
+	 */
+	public Histogram getBlockedCalls() {
+		return blocked;
+	}
+
+	/**
+	 * Removes every recorded search.
+	 */
+	public void reset() {
+		failures.reset();
+		nanos.reset();
+		expanded.reset();
+		generated.reset();
+		reparented.reset();
+		peakOpen.reset();
+		blocked.reset();
+	}
+
+	@Override
+	public String toString() {
+		return "SearchRecorder[searches=" + getSearches() + ", failures=" + getFailures() + ", nanos=" + nanos + ", expanded=" + expanded + "]";
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.overload.algorithms.pathfinding;
+
+/**
+ * The statistics of a single search, filled in by the algorithm as it runs when statistics are enabled.<br>
+ * Algorithms only count what applies to them, a count they don't track stays 0.
+ * Bidirectional searches report the larger peak of their two open lists,
+ * and the bit-scanning jump point searches don't count the words they scan as collision tests.
+ * @see Pathfinding#setStatistics(boolean)
+ * @see SearchRecorder
+ * @author Odell
+ */
+public final class SearchStats {
+
+	int generated, reparented, peak;
+	long blocked;
+	private int expanded;
+	private long nanos;
+	private boolean found;
+
+	SearchStats() {
+	}
+
+	/**
+	 * Creates a copy of the given statistics.
+	 * @param stats the statistics to copy.
+	 */
+	public SearchStats(final SearchStats stats) {
+		this.generated = stats.generated;
+		this.reparented = stats.reparented;
+		this.peak = stats.peak;
+		this.blocked = stats.blocked;
+		this.expanded = stats.expanded;
+		this.nanos = stats.nanos;
+		this.found = stats.found;
+	}
+
+	/**
+	 * @return the number of nodes expanded.
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * @return the number of nodes reached for the first time and added to the open list.
+	 */
+	public int getGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return the number of times a cheaper parent was found for a node which was already reached.
+	 */
+	public int getReparented() {
+		return reparented;
+	}
+
+	/**
+	 * @return the largest size the open list reached.
+	 */
+	public int getPeakOpen() {
+		return peak;
+	}
+
+	/**
+	 * @return the number of collision tests, either calls to {@link Pathfinding.Flags#blocked(com.overload.loc.Locatable, com.overload.loc.Locatable)} or bit grid lookups.
+	 */
+	public long getBlockedCalls() {
+		return blocked;
+	}
+
+	/**
+	 * @return the wall time of the search in nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/**
+	 * @return whether a path was found.
+	 */
+	public boolean isFound() {
+		return found;
+	}
+
+	/**
+	 * Counts a node reached, or reached again through a cheaper parent, and tracks the peak size of the open list.
+	 * @param reparent whether the node was already reached.
+	 * @param size the size of the open list with the node in it.
+	 */
+	void reached(final boolean reparent, final int size) {
+		if (reparent)
+			reparented++;
+		else
+			generated++;
+		if (size > peak)
+			peak = size;
+	}
+
+	/**
+	 * Tracks the peak size of the open list.
+	 */
+	void opened(final int size) {
+		if (size > peak)
+			peak = size;
+	}
+
+	void reset() {
+		generated = reparented = peak = expanded = 0;
+		blocked = nanos = 0L;
+		found = false;
+	}
+
+	void finish(final int expanded, final long nanos, final boolean found) {
+		this.expanded = expanded;
+		this.nanos = nanos;
+		this.found = found;
+	}
+
+	@Override
+	public String toString() {
+		return "SearchStats[found=" + found + ", nanos=" + nanos + ", expanded=" + expanded + ", generated=" + generated +
+				", reparented=" + reparented + ", peakOpen=" + peak + ", blockedCalls=" + blocked + "]";
+	}
+
+}
\ No newline at end of file
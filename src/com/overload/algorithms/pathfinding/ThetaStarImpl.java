@@ -0,0 +1,152 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding.Heuristic;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Theta*, any-angle pathfinding first described by Alex Nash, Kenny Daniel, Sven Koenig and Ariel Felner in 2007,
+ * and Lazy Theta*, described by Alex Nash, Sven Koenig and Craig Tovey in 2010, on a bounded grid.<br>
+ * A* whose cells may take the parent of their parent when the two are in line of sight,
+ * so paths follow straight lines at any angle instead of the grid directions.
+ * The lazy variant assumes line of sight when a cell is reached and only checks it once the cell is expanded,
+ * which keeps the number of line of sight checks close to the number of expansions.<br>
+ * Moves cost their Euclidean length and the heuristic is always {@link Heuristic#EUCLIDEAN},
+ * the diagonal cost and terrain costs are ignored.
+ * Like the line of sight, diagonal moves never pass a blocked cell beside their corner,
+ * so every segment of a path passes {@link Paths#lineOfSight(Pathfinding.Flags, int, int, int, int)}.
+ * The path holds only the waypoints, each in line of sight of the next one.
+ * @see Paths#lineOfSight(Pathfinding.Flags, int, int, int, int)
+ * @author Odell
+ */
+class ThetaStarImpl extends GridDefinition {
+
+	private final boolean lazy;
+	private final Paths.Ray ray = new Paths.Ray(null) {
+		@Override
+		boolean blocked(final int x, final int y, final int px, final int py) {
+			return !inBounds(x, y) || ThetaStarImpl.this.blocked(x, y, px, py);
+		}
+	};
+
+	/**
+	 * @param lazy whether to defer line of sight checks until a cell is expanded.
+	 */
+	ThetaStarImpl(final boolean lazy) {
+		this.lazy = lazy;
+		this.heur = Heuristic.EUCLIDEAN;
+	}
+
+	/**
+	 * Ignored, the heuristic is always Euclidean.
+	 */
+	@Override
+	public void setHeuristic(final Heuristic heur) {
+	}
+
+	/**
+	 * Ignored, any-angle paths may be shorter than the grid distances of the landmarks.
+	 */
+	@Override
+	void setLandmarks(final Landmarks landmarks) {
+	}
+
+	@Override
+	protected int search(final int source, final int goal) {
+		relax(source, -1, 0.0F, heuristic(source % width, source / width));
+		final int dirs = eight ? 8 : 4;
+		int curr;
+		while ((curr = open.poll()) >= 0) {
+			if (lazy)
+				settle(curr, dirs);
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int cx = curr % width, cy = curr / width;
+			final int p = parent[curr];
+			for (int d = 0; d < dirs; d++) {
+				final int nx = cx + GridAStarImpl.DX[d], ny = cy + GridAStarImpl.DY[d];
+				if (!inBounds(nx, ny))
+					continue;
+				final int n = ny * width + nx;
+				final boolean seen = visited(n);
+				if (seen && !open.contains(n)) // closed
+					continue;
+				if (blocked(nx, ny, cx, cy) || cutsCorner(nx, ny, cx, cy))
+					continue;
+				int from = curr;
+				if (p >= 0 && (lazy || ray.clear(p % width, p / width, nx, ny)))
+					from = p; // path 2, straight from the grandparent
+				final float ng = g[from] + length(from, n);
+				if (seen && ng >= g[n])
+					continue;
+				relax(n, from, ng, ng + heuristic(nx, ny));
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks the line of sight a cell assumed to its parent when it was reached,
+	 * without it the cell takes the cheapest expanded neighbor as its parent instead.
+	 */
+	private void settle(final int cell, final int dirs) {
+		final int p = parent[cell];
+		if (p < 0)
+			return;
+		final int x = cell % width, y = cell / width;
+		if (ray.clear(p % width, p / width, x, y))
+			return;
+		float min = Float.POSITIVE_INFINITY;
+		int arg = -1;
+		for (int d = 0; d < dirs; d++) {
+			final int nx = x + GridAStarImpl.DX[d], ny = y + GridAStarImpl.DY[d];
+			if (!inBounds(nx, ny))
+				continue;
+			final int n = ny * width + nx;
+			if (!visited(n) || open.contains(n)) // only expanded neighbors
+				continue;
+			final float cost = g[n] + length(n, cell);
+			if (cost < min && !blocked(x, y, nx, ny) && !cutsCorner(x, y, nx, ny)) {
+				min = cost;
+				arg = n;
+			}
+		}
+		parent[cell] = arg;
+		g[cell] = min;
+	}
+
+	/**
+	 * Tests whether a move between adjacent cells is diagonal and passes a blocked cell beside its corner,
+	 * which the line of sight between the two cells doesn't allow.
+	 */
+	private boolean cutsCorner(final int x, final int y, final int px, final int py) {
+		return x != px && y != py && (ray.blocked(x, py, px, py) || ray.blocked(px, y, px, py));
+	}
+
+	/**
+	 * Returns the Euclidean distance between the centers of two cells.
+	 */
+	private float length(final int from, final int to) {
+		final int dx = to % width - from % width, dy = to / width - from / width;
+		return (float) Math.sqrt(dx * dx + dy * dy);
+	}
+
+	/**
+	 * Resolves the target into its waypoints by tracing the parent tree backward.
+	 */
+	@Override
+	protected List<Locatable> resolve(int target) {
+		final ArrayList<Locatable> path = new ArrayList<Locatable>();
+		do {
+			path.add(new Node(target % width, target / width));
+		} while ((target = parent[target]) != -1);
+		Collections.reverse(path);
+		return path;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.overload.algorithms.pathfinding;
+
+/**
+ * A* pathfinding algorithm on a bounded voxel grid.
+ * @see GridAStarImpl
+ * @see VoxelDefinition
+ * @author Odell
+ */
+class VoxelAStarImpl extends VoxelDefinition {
+
+	@Override
+	protected int search(final int source, final int goal) {
+		relax(source, -1, 0.0F, heuristic(xOf(source), yOf(source), zOf(source)));
+		int curr;
+		while ((curr = open.poll()) >= 0) {
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int cx = xOf(curr), cy = yOf(curr), cz = zOf(curr);
+			final float cg = g[curr];
+			for (int d = 0; d < neighbors; d++) {
+				final int nx = cx + DX[d], ny = cy + DY[d], nz = cz + DZ[d];
+				if (!inBounds(nx, ny, nz))
+					continue;
+				final int n = index(nx, ny, nz);
+				final boolean seen = visited(n);
+				if (seen && !open.contains(n)) // closed
+					continue;
+				final float ng = cg + COST[d];
+				if (seen && ng >= g[n])
+					continue;
+				if (blocked(nx, ny, nz, cx, cy, cz))
+					continue;
+				relax(n, curr, ng, ng + heuristic(nx, ny, nz));
+			}
+		}
+		return -1;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,257 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.overload.algorithms.pathfinding.Pathfinding3D.Connectivity;
+import com.overload.algorithms.pathfinding.Pathfinding3D.Flags;
+import com.overload.algorithms.pathfinding.Pathfinding3D.Heuristic;
+import com.overload.loc.Locatable3D;
+import com.overload.loc.Node3D;
+
+/**
+ * A pathfinding algorithm model on a bounded voxel grid.<br>
+ * All search state is kept in flat primitive arrays indexed by <tt>(z * height + y) * width + x</tt>,
+ * which are reused across calls so a search allocates nothing beyond the returned path.<br>
+ * Locations outside of the bounds are considered blocked.
+ * @see GridDefinition
+ * @author Odell
+ */
+abstract class VoxelDefinition {
+
+	static final double EDGE = Math.sqrt(2.0D), CORNER = Math.sqrt(3.0D);
+
+	/**
+	 * Neighbor offsets, the 6 face neighbors first, then the 12 edge neighbors, then the 8 corner neighbors,
+	 * so the first n offsets are the n-connected neighborhood.
+	 */
+	static final int[] DX = new int[26], DY = new int[26], DZ = new int[26];
+	/**
+	 * the cost of moving by each offset.
+	 */
+	static final float[] COST = new float[26];
+	/**
+	 * the offset of each direction, indexed by <tt>(dz + 1) * 9 + (dy + 1) * 3 + (dx + 1)</tt>, -1 for no direction.
+	 */
+	private static final int[] OFFSET = new int[27];
+
+	static {
+		int i = 0;
+		OFFSET[13] = -1;
+		for (int axes = 1; axes <= 3; axes++) {
+			for (int dz = -1; dz <= 1; dz++) {
+				for (int dy = -1; dy <= 1; dy++) {
+					for (int dx = -1; dx <= 1; dx++) {
+						if (Math.abs(dx) + Math.abs(dy) + Math.abs(dz) != axes)
+							continue;
+						DX[i] = dx;
+						DY[i] = dy;
+						DZ[i] = dz;
+						COST[i] = (float) (axes == 1 ? 1.0D : axes == 2 ? EDGE : CORNER);
+						OFFSET[(dz + 1) * 9 + (dy + 1) * 3 + (dx + 1)] = i++;
+					}
+				}
+			}
+		}
+	}
+
+	protected Flags flags;
+	protected Heuristic heur;
+	/**
+	 * the heuristic of the current search, the chosen one or one which suits the connectivity.
+	 */
+	protected Heuristic active;
+	protected int neighbors = 26;
+	protected int width = 0, height = 0, depth = 0;
+
+	/**
+	 * the exact cost to reach a voxel from the starting voxel.
+	 */
+	protected float[] g;
+	/**
+	 * the index of the parent of a voxel, or -1 for the start.
+	 */
+	protected int[] parent;
+	/**
+	 * the search generation a voxel was last touched in, other voxels are treated as unvisited.
+	 */
+	protected int[] stamp;
+	protected int generation = 0;
+	/**
+	 * the open list of voxel indices, a visited voxel which isn't open is closed.
+	 */
+	protected IndexedHeap open;
+	/**
+	 * the number of voxels expanded by the last search.
+	 */
+	protected int expanded = 0;
+	protected int destX, destY, destZ;
+
+	protected final Node3D probe = new Node3D(0, 0, 0), probeParent = new Node3D(0, 0, 0);
+
+	/**
+	 * Returns the offset of the direction with the given signs.
+	 * @return the index into the offset arrays, or -1 if every sign is 0.
+	 */
+	static int offset(final int dx, final int dy, final int dz) {
+		return OFFSET[(dz + 1) * 9 + (dy + 1) * 3 + (dx + 1)];
+	}
+
+	void setFlags(final Flags flags) {
+		this.flags = flags;
+	}
+
+	void setHeuristic(final Heuristic heur) {
+		this.heur = heur;
+	}
+
+	void setConnectivity(final Connectivity connectivity) {
+		this.neighbors = connectivity.getNeighbors();
+	}
+
+	void setBounds(final int width, final int height, final int depth) {
+		if (width <= 0 || height <= 0 || depth <= 0)
+			throw new IllegalArgumentException("bounds must be positive");
+		if ((long) width * (long) height * (long) depth > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("bounds are too large");
+		if (this.width != width || this.height != height || this.depth != depth) {
+			this.width = width;
+			this.height = height;
+			this.depth = depth;
+			// reallocated lazily on the next search
+			g = null;
+		}
+	}
+
+	int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Finds a path between the given start and end locations.
+	 * @param start start location
+	 * @param end destination location
+	 * @return a path from start to end, or null if path not found.
+	 */
+	List<Locatable3D> findPath(final Locatable3D start, final Locatable3D end) {
+		if (width <= 0 || height <= 0 || depth <= 0)
+			throw new IllegalStateException("voxel bounds are not set");
+		active = heur != null ? heur : neighbors == 6 ? Heuristic.MANHATTAN : Heuristic.OCTILE;
+		expanded = 0;
+		if (!inBounds(start.getX(), start.getY(), start.getZ()) || !inBounds(end.getX(), end.getY(), end.getZ()))
+			return null;
+		if (blocked(end.getX(), end.getY(), end.getZ(), -1, -1, -1)) // ensure the destination isn't blocked already
+			return null;
+		destX = end.getX();
+		destY = end.getY();
+		destZ = end.getZ();
+		prepare();
+		try {
+			final int target = search(index(start.getX(), start.getY(), start.getZ()), index(destX, destY, destZ));
+			return target >= 0 ? resolve(target) : null;
+		} finally {
+			open.clear();
+		}
+	}
+
+	/**
+	 * Searches from the source voxel to the goal voxel.<br>
+	 * The arrays are allocated and every voxel is unvisited when this is called.
+	 * @param source the index of the starting voxel.
+	 * @param goal the index of the destination voxel.
+	 * @return the index of the reached voxel to resolve the path from, or -1 if there was no path.
+	 */
+	protected abstract int search(final int source, final int goal);
+
+	protected final int index(final int x, final int y, final int z) {
+		return (z * height + y) * width + x;
+	}
+
+	protected final int xOf(final int cell) {
+		return cell % width;
+	}
+
+	protected final int yOf(final int cell) {
+		return (cell / width) % height;
+	}
+
+	protected final int zOf(final int cell) {
+		return cell / width / height;
+	}
+
+	protected final boolean inBounds(final int x, final int y, final int z) {
+		return x >= 0 && y >= 0 && z >= 0 && x < width && y < height && z < depth;
+	}
+
+	/**
+	 * Tests a voxel, a negative parent X position means no parent.
+	 */
+	protected final boolean blocked(final int x, final int y, final int z, final int px, final int py, final int pz) {
+		return flags != null && flags.blocked(probe.set(x, y, z), px < 0 ? null : probeParent.set(px, py, pz));
+	}
+
+	/**
+	 * Returns the heuristic distance from a voxel to the destination.
+	 */
+	protected final float heuristic(final int x, final int y, final int z) {
+		return (float) active.distance(Math.abs(x - destX), Math.abs(y - destY), Math.abs(z - destZ));
+	}
+
+	protected final boolean visited(final int cell) {
+		return stamp[cell] == generation;
+	}
+
+	/**
+	 * Records a voxel as reached through the given parent with the given cost and opens it, or updates it if already open.
+	 */
+	protected final void relax(final int cell, final int from, final float cost, final double f) {
+		g[cell] = cost;
+		parent[cell] = from;
+		stamp[cell] = generation;
+		open.offer(cell, f);
+	}
+
+	/**
+	 * Allocates the search arrays if needed and advances the generation,
+	 * which invalidates the state of every voxel in O(1).
+	 */
+	private void prepare() {
+		if (g == null) {
+			final int cells = width * height * depth;
+			g = new float[cells];
+			parent = new int[cells];
+			stamp = new int[cells];
+			open = new IndexedHeap(cells);
+			generation = 0;
+		}
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+	}
+
+	/**
+	 * Resolves the target by tracing the parent tree backward,
+	 * filling in the voxels of straight, edge and corner segments between non-adjacent voxels.
+	 */
+	private List<Locatable3D> resolve(int target) {
+		final ArrayList<Locatable3D> path = new ArrayList<Locatable3D>();
+		int x = xOf(target), y = yOf(target), z = zOf(target);
+		path.add(new Node3D(x, y, z));
+		while ((target = parent[target]) != -1) {
+			final int px = xOf(target), py = yOf(target), pz = zOf(target);
+			final int dx = Integer.signum(px - x), dy = Integer.signum(py - y), dz = Integer.signum(pz - z);
+			while (x != px || y != py || z != pz) {
+				x += x != px ? dx : 0;
+				y += y != py ? dy : 0;
+				z += z != pz ? dz : 0;
+				path.add(new Node3D(x, y, z));
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+}
\ No newline at end of file
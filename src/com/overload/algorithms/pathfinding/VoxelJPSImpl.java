@@ -0,0 +1,236 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.Arrays;
+
+/**
+ * Jump point search on a bounded voxel grid, extending the rules of Daniel Harabor and Alban Grastien to three dimensions.<br>
+ * Paths are canonical when corner moves come first, then edge moves, then face moves,
+ * so a voxel reached in a direction only needs the sub-directions of that direction as its natural neighbors
+ * (the direction itself and those which move along fewer of its axes).
+ * A neighbor is forced when the voxel beside it, which the canonical path would have crossed, is blocked.<br>
+ * The face and edge scans made while jumping are iterative and their outcome is remembered for every voxel passed,
+ * so no voxel is scanned twice in the same direction during a search and jumps don't rescan the volume ahead of them.<br>
+ * Only the 26-connected neighborhood is supported.
+ * @see JPSImpl
+ * @see VoxelDefinition
+ * @author Odell
+ */
+class VoxelJPSImpl extends VoxelDefinition {
+
+	/**
+	 * the natural neighbor directions of each direction, the direction itself first.
+	 */
+	private static final int[][] NATURAL = new int[26][];
+	/**
+	 * the forced neighbor rules of each direction, the neighbor at the offset in {@link #FORCED}
+	 * is forced when the voxel at the offset in {@link #BESIDE} is blocked.
+	 */
+	private static final int[][] BESIDE = new int[26][], FORCED = new int[26][];
+
+	static {
+		for (int d = 0; d < 26; d++) {
+			final int[] dir = { DX[d], DY[d], DZ[d] };
+			int[] natural = new int[7], beside = new int[16], forced = new int[16];
+			int naturals = 0, rules = 0;
+			natural[naturals++] = d;
+			for (int s = 0; s < 26; s++) { // every other direction which only moves along a subset of the axes of this one
+				if (s != d && within(new int[] { DX[s], DY[s], DZ[s] }, dir))
+					natural[naturals++] = s;
+			}
+			for (int f = 0; f < 26; f++) {
+				final int[] off = { DX[f], DY[f], DZ[f] };
+				// the voxel beside may only step back along the axes of this direction, and not along all of them
+				int back = 0, axes = 0;
+				boolean valid = true;
+				for (int a = 0; a < 3; a++) {
+					if (dir[a] == 0)
+						continue;
+					axes++;
+					if (off[a] == dir[a])
+						valid = false;
+					else if (off[a] == -dir[a])
+						back++;
+				}
+				if (!valid || back == axes)
+					continue;
+				// forced neighbors step forward from the voxel beside along the axes it didn't step back on
+				for (int t = 0; t < 26; t++) {
+					final int[] step = { DX[t], DY[t], DZ[t] };
+					boolean match = true;
+					for (int a = 0; a < 3 && match; a++)
+						match = step[a] == 0 || (step[a] == dir[a] && off[a] == 0);
+					if (!match)
+						continue;
+					if (rules == beside.length) {
+						beside = Arrays.copyOf(beside, rules << 1);
+						forced = Arrays.copyOf(forced, rules << 1);
+					}
+					beside[rules] = f;
+					forced[rules++] = offset(off[0] + step[0], off[1] + step[1], off[2] + step[2]);
+				}
+			}
+			NATURAL[d] = Arrays.copyOf(natural, naturals);
+			BESIDE[d] = Arrays.copyOf(beside, rules);
+			FORCED[d] = Arrays.copyOf(forced, rules);
+		}
+	}
+
+	/**
+	 * Tests whether a direction only moves along the axes of another, in the same way.
+	 */
+	private static boolean within(final int[] sub, final int[] dir) {
+		for (int a = 0; a < 3; a++) {
+			if (sub[a] != 0 && sub[a] != dir[a])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * the face and edge scans already made from each voxel, bit d is set once the scan in direction d was made
+	 * and bit 32 + d is set if it found a jump point. Only valid for voxels whose entry in {@link #scanned} is the generation.
+	 */
+	private long[] scans;
+	private int[] scanned;
+
+	@Override
+	protected int search(final int source, final int goal) {
+		if (neighbors != 26)
+			throw new IllegalStateException("jump point search requires the 26-connected neighborhood");
+		if (scans == null || scans.length != g.length) {
+			scans = new long[g.length];
+			scanned = new int[g.length];
+		} else if (generation == 1) { // the generation wrapped around
+			Arrays.fill(scanned, 0);
+		}
+		relax(source, -1, 0.0F, heuristic(xOf(source), yOf(source), zOf(source)));
+		int curr;
+		while ((curr = open.poll()) >= 0) {
+			if (curr == goal)
+				return goal;
+			expanded++;
+			final int cx = xOf(curr), cy = yOf(curr), cz = zOf(curr);
+			final int p = parent[curr];
+			if (p < 0) {
+				for (int d = 0; d < 26; d++)
+					successor(curr, cx, cy, cz, d);
+			} else {
+				final int d = offset(Integer.signum(cx - xOf(p)), Integer.signum(cy - yOf(p)), Integer.signum(cz - zOf(p)));
+				for (final int n : NATURAL[d])
+					successor(curr, cx, cy, cz, n);
+				final int[] beside = BESIDE[d], forced = FORCED[d];
+				for (int i = 0; i < beside.length; i++) {
+					final int f = beside[i];
+					if (closed(cx + DX[f], cy + DY[f], cz + DZ[f], cx, cy, cz))
+						successor(curr, cx, cy, cz, forced[i]);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Jumps from the voxel in the direction, and reaches the jump point found.
+	 */
+	private void successor(final int curr, final int cx, final int cy, final int cz, final int d) {
+		final int jump = jump(cx, cy, cz, d);
+		if (jump < 0)
+			return;
+		final boolean seen = visited(jump);
+		if (seen && !open.contains(jump)) // closed
+			return;
+		final int jx = xOf(jump), jy = yOf(jump), jz = zOf(jump);
+		final int steps = Math.max(Math.abs(jx - cx), Math.max(Math.abs(jy - cy), Math.abs(jz - cz)));
+		final float ng = g[curr] + steps * COST[d];
+		if (seen && ng >= g[jump])
+			return;
+		relax(jump, curr, ng, ng + heuristic(jx, jy, jz));
+	}
+
+	/**
+	 * Steps from the voxel in the direction until a jump point is found.
+	 * @return the index of the jump point, or -1 if the direction runs into a blocked voxel first.
+	 */
+	private int jump(int x, int y, int z, final int d) {
+		final int dx = DX[d], dy = DY[d], dz = DZ[d];
+		while (true) {
+			final int nx = x + dx, ny = y + dy, nz = z + dz;
+			if (closed(nx, ny, nz, x, y, z))
+				return -1;
+			x = nx;
+			y = ny;
+			z = nz;
+			if (point(x, y, z, d))
+				return index(x, y, z);
+		}
+	}
+
+	/**
+	 * Tests whether a voxel reached in the direction is a jump point,
+	 * because it's the goal or lies on a plane of the goal which the direction crosses,
+	 * it has a forced neighbor or a scan along a sub-direction finds a jump point.<br>
+	 * Stopping at the planes of the goal only adds jump points, which keeps the paths optimal
+	 * while bounding the scans of an open volume by the distance to the goal.
+	 */
+	private boolean point(final int x, final int y, final int z, final int d) {
+		if ((DX[d] != 0 && x == destX) || (DY[d] != 0 && y == destY) || (DZ[d] != 0 && z == destZ))
+			return true;
+		final int[] beside = BESIDE[d], forced = FORCED[d];
+		for (int i = 0; i < beside.length; i++) {
+			final int f = beside[i], n = forced[i];
+			if (closed(x + DX[f], y + DY[f], z + DZ[f], x, y, z) && !closed(x + DX[n], y + DY[n], z + DZ[n], x, y, z))
+				return true;
+		}
+		final int[] natural = NATURAL[d];
+		for (int i = 1; i < natural.length; i++) { // a jump point along a sub-direction makes this one as well
+			if (scan(x, y, z, natural[i]))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Tests whether a jump from the voxel in a face or edge direction finds a jump point.<br>
+	 * Every voxel passed shares the outcome, which is remembered so later scans stop as soon as they reach one of them.
+	 */
+	private boolean scan(final int x0, final int y0, final int z0, final int d) {
+		final int dx = DX[d], dy = DY[d], dz = DZ[d];
+		final long made = 1L << d, found = 1L << (32 + d);
+		int x = x0, y = y0, z = z0, passed = 0;
+		boolean result;
+		while (true) {
+			final int cell = index(x, y, z);
+			if (scanned[cell] == generation && (scans[cell] & made) != 0L) {
+				result = (scans[cell] & found) != 0L;
+				break;
+			}
+			passed++; // the outcome of this voxel is decided by the voxels ahead
+			final int nx = x + dx, ny = y + dy, nz = z + dz;
+			if (closed(nx, ny, nz, x, y, z)) {
+				result = false;
+				break;
+			}
+			x = nx;
+			y = ny;
+			z = nz;
+			if (point(x, y, z, d)) {
+				result = true;
+				break;
+			}
+		}
+		for (x = x0, y = y0, z = z0; passed > 0; passed--, x += dx, y += dy, z += dz) {
+			final int cell = index(x, y, z);
+			if (scanned[cell] != generation) {
+				scanned[cell] = generation;
+				scans[cell] = 0L;
+			}
+			scans[cell] |= result ? made | found : made;
+		}
+		return result;
+	}
+
+	private boolean closed(final int x, final int y, final int z, final int px, final int py, final int pz) {
+		return !inBounds(x, y, z) || blocked(x, y, z, px, py, pz);
+	}
+
+}
\ No newline at end of file
@@ -105,6 +105,20 @@ public class Node3D implements Locatable3D {
 		this.z = z;
 	}
 	
+	/**
+	 * Sets all three coordinates of this Node3D.
+	 * @param x the new X position of this Node3D.
+	 * @param y the new Y position of this Node3D.
+	 * @param z the new Z position of this Node3D.
+	 * @return this Node3D.
+	 */
+	public Node3D set(final int x, final int y, final int z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
 	/**
 	 * @return a Node object of this Node3D's x,y coordinates.
 	 */
@@ -0,0 +1,146 @@
+package com.overload.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of non-negative long values with log-linear buckets.<br>
+ * Every power of two is split into 16 buckets, so a percentile is within 6.25% of the recorded value,
+ * and the whole range of long values fits in 976 buckets. Recording is a few atomic increments,
+ * which makes this safe and cheap to share between threads.<br>
+ * Reads aren't atomic with concurrent writes, a value recorded while reading may be missing from some of the results.
+ * @author Odell
+ */
+public class Histogram {
+
+	private static final int SUB_BITS = 4;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) << SUB_BITS;
+
+	private final AtomicLongArray counts;
+	private final LongAdder sum;
+	private final AtomicLong min, max;
+
+	/**
+	 * Creates an empty histogram.
+	 */
+	public Histogram() {
+		counts = new AtomicLongArray(BUCKETS);
+		sum = new LongAdder();
+		min = new AtomicLong(Long.MAX_VALUE);
+		max = new AtomicLong(Long.MIN_VALUE);
+	}
+
+	/**
+	 * Records a value.
+	 * @param value the non-negative value to record.
+	 * @throws IllegalArgumentException if the value is negative.
+	 */
+	public void record(final long value) {
+		if (value < 0L)
+			throw new IllegalArgumentException("value can't be negative");
+		counts.incrementAndGet(indexOf(value));
+		sum.add(value);
+		long m;
+		while (value < (m = min.get()) && !min.compareAndSet(m, value));
+		while (value > (m = max.get()) && !max.compareAndSet(m, value));
+	}
+
+	/**
+	 * @return the number of values recorded.
+	 */
+	public long getCount() {
+		long count = 0L;
+		for (int i = 0; i < BUCKETS; i++)
+			count += counts.get(i);
+		return count;
+	}
+
+	/**
+	 * @return the sum of every value recorded.
+	 */
+	public long getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * @return the mean of the values recorded, or 0 if there are none.
+	 */
+	public double getMean() {
+		final long count = getCount();
+		return count > 0L ? (double) getSum() / count : 0.0D;
+	}
+
+	/**
+	 * @return the lowest value recorded, or 0 if there are none.
+	 */
+	public long getMin() {
+		final long m = min.get();
+		return m == Long.MAX_VALUE ? 0L : m;
+	}
+
+	/**
+	 * @return the highest value recorded, or 0 if there are none.
+	 */
+	public long getMax() {
+		final long m = max.get();
+		return m == Long.MIN_VALUE ? 0L : m;
+	}
+
+	/**
+	 * Returns the value at the given percentile, the highest value of the bucket it falls in.
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the value at or below which the given percentage of the values recorded fall, or 0 if there are none.
+	 */
+	public long getPercentile(final double percentile) {
+		if (percentile < 0.0D || percentile > 100.0D)
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		final long[] snapshot = new long[BUCKETS];
+		long count = 0L;
+		for (int i = 0; i < BUCKETS; i++)
+			count += (snapshot[i] = counts.get(i));
+		if (count == 0L)
+			return 0L;
+		final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0D * count));
+		long seen = 0L;
+		for (int i = 0; i < BUCKETS; i++) {
+			if ((seen += snapshot[i]) >= rank)
+				return Math.max(getMin(), Math.min(getMax(), highestOf(i)));
+		}
+		return getMax();
+	}
+
+	/**
+	 * Removes every recorded value.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++)
+			counts.set(i, 0L);
+		sum.reset();
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+	}
+
+	private static int indexOf(final long value) {
+		if (value < SUB_COUNT)
+			return (int) value;
+		final int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BITS;
+		return ((shift + 1) << SUB_BITS) + (int) ((value >>> shift) & (SUB_COUNT - 1));
+	}
+
+	private static long highestOf(final int index) {
+		if (index < SUB_COUNT)
+			return index;
+		final int shift = (index >>> SUB_BITS) - 1;
+		final long lowest = (long) (SUB_COUNT + (index & (SUB_COUNT - 1))) << shift;
+		return lowest + ((1L << shift) - 1L);
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram[count=" + getCount() + ", min=" + getMin() + ", mean=" + getMean() + ", p50=" + getPercentile(50.0D) +
+				", p99=" + getPercentile(99.0D) + ", max=" + getMax() + "]";
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Regression test of {@link DStarLiteImpl} replanning with a diagonal cost which floats can't represent,
+ * every replan after cells changed must find a path exactly when a search from scratch does, at the same cost.<br>
+ * A failure throws an {@link AssertionError}.
+ * @author Odell
+ */
+public class DStarLiteImplTest {
+
+	private static final int SIZE = 24, GRIDS = 300, REPLANS = 20;
+
+	public static void main(final String[] args) {
+		final double diagonal = Math.sqrt(2.0D);
+		final Random random = new Random(1L);
+		int replans = 0;
+		for (int n = 0; n < GRIDS; n++) {
+			final BitGrid grid = new BitGrid(SIZE, SIZE);
+			for (int y = 0; y < SIZE; y++) {
+				for (int x = 0; x < SIZE; x++)
+					grid.set(x, y, random.nextInt(4) == 0);
+			}
+			final Node goal = open(grid, random);
+			final Pathfinding pf = new Pathfinding(Algorithm.D_STAR_LITE, grid);
+			pf.setEight(true);
+			pf.setDiagonal(diagonal);
+			pf.setBounds(SIZE, SIZE);
+			Node start = open(grid, random);
+			pf.findPath(start, goal);
+			for (int r = 0; r < REPLANS; r++) {
+				for (int i = 0; i < 3; i++) {
+					final int x = random.nextInt(SIZE), y = random.nextInt(SIZE);
+					if (goal.getX() == x && goal.getY() == y)
+						continue;
+					grid.set(x, y, !grid.blocked(x, y));
+					pf.invalidate(new Rectangle(x, y, 1, 1));
+				}
+				start = open(grid, random);
+				final List<Locatable> path = pf.findPath(start, goal);
+				final double expected = FlowField.compute(grid, SIZE, SIZE, true, diagonal, Collections.singletonList(goal))
+						.getDistance(start.getX(), start.getY());
+				replans++;
+				if (expected == Double.POSITIVE_INFINITY) {
+					check(path == null, "replan " + replans + " found a path from " + start + " to unreachable " + goal);
+					continue;
+				}
+				check(path != null, "replan " + replans + " found no path from " + start + " to " + goal);
+				final double cost = PathfindingBenchmark.cost(path, diagonal);
+				check(Math.abs(cost - expected) < 1.0E-4, "replan " + replans + " cost " + cost + " instead of " + expected);
+				for (final Locatable loc : path)
+					check(!grid.blocked(loc.getX(), loc.getY()), "replan " + replans + " path crosses blocked " + loc);
+			}
+		}
+		System.out.println("DStarLiteImplTest: " + replans + " replans passed");
+	}
+
+	private static Node open(final BitGrid grid, final Random random) {
+		while (true) {
+			final int x = random.nextInt(grid.getWidth()), y = random.nextInt(grid.getHeight());
+			if (!grid.blocked(x, y))
+				return new Node(x, y);
+		}
+	}
+
+	private static void check(final boolean condition, final String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
\ No newline at end of file
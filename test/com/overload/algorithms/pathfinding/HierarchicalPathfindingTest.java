@@ -0,0 +1,110 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Regression test of {@link HierarchicalPathfinding} reachability, every query must find a path exactly
+ * when a plain search over the whole grid does, four and eight way, including goals only reachable
+ * through a diagonal border crossing, and after cells changed.
+ * Algorithms which can't honor the settings within a cluster must be rejected.<br>
+ * A failure throws an {@link AssertionError}.
+ * @author Odell
+ */
+public class HierarchicalPathfindingTest {
+
+	private static final int SIZE = 30, CLUSTER = 6, GRIDS = 200, QUERIES = 20;
+
+	public static void main(final String[] args) {
+		// the only crossing between the clusters is the diagonal step from (1, 17) to (2, 18)
+		final BitGrid corner = new BitGrid(3, 27);
+		for (int y = 0; y < 27; y++) {
+			for (int x = 0; x < 3; x++)
+				corner.set(x, y, y >= 17 && y <= 18 && !(x == 1 && y == 17) && !(x == 2 && y == 18));
+		}
+		final HierarchicalPathfinding hpa = new HierarchicalPathfinding(Algorithm.ASTAR_GRID, corner, 3, 27, CLUSTER);
+		hpa.setEight(true);
+		hpa.setDiagonal(Math.sqrt(2.0D));
+		verify(corner, hpa.findPath(new Node(2, 15), new Node(1, 26)), new Node(2, 15), new Node(1, 26), true, "corner");
+
+		for (final Algorithm alg : new Algorithm[] { Algorithm.JUMP_POINT_SEARCH, Algorithm.THETA_STAR, Algorithm.D_STAR_LITE }) {
+			try {
+				new HierarchicalPathfinding(alg, corner, 3, 27, CLUSTER);
+				check(false, alg + " was accepted within clusters");
+			} catch (final IllegalArgumentException e) {
+			}
+		}
+
+		final Random random = new Random(1L);
+		int queries = 0;
+		for (int n = 0; n < GRIDS; n++) {
+			final boolean eight = (n & 1) == 0;
+			final BitGrid grid = new BitGrid(SIZE, SIZE);
+			final int density = n % 3 == 0 ? 10 : 3; // one cell in ten or one in three blocked
+			for (int y = 0; y < SIZE; y++) {
+				for (int x = 0; x < SIZE; x++)
+					grid.set(x, y, random.nextInt(density) == 0);
+			}
+			final HierarchicalPathfinding pf = new HierarchicalPathfinding(Algorithm.ASTAR_GRID, grid, SIZE, SIZE, CLUSTER);
+			pf.setEight(eight);
+			pf.setDiagonal(Math.sqrt(2.0D));
+			for (int q = 0; q < QUERIES; q++) {
+				if (q == QUERIES / 2) { // change a few cells, only the clusters around them are rebuilt
+					for (int i = 0; i < 8; i++) {
+						final int x = random.nextInt(SIZE), y = random.nextInt(SIZE);
+						grid.set(x, y, !grid.blocked(x, y));
+						pf.invalidate(new Rectangle(x, y, 1, 1));
+					}
+				}
+				final Node start = open(grid, random), end = open(grid, random);
+				verify(grid, pf.findPath(start, end), start, end, eight, "grid " + n + " query " + q);
+				queries++;
+			}
+		}
+		System.out.println("HierarchicalPathfindingTest: " + queries + " queries passed");
+	}
+
+	/**
+	 * Checks that a path is connected, stays on open cells and joins the start to the end,
+	 * or that a plain search can't reach the end either when there's no path.
+	 */
+	private static void verify(final BitGrid grid, final List<Locatable> path, final Locatable start, final Locatable end,
+			final boolean eight, final String query) {
+		if (path == null) {
+			check(!FlowField.compute(grid, grid.getWidth(), grid.getHeight(), eight, 1.0D, Collections.singletonList(end)).reachable(start),
+					query + " found no path from " + start + " to " + end);
+			return;
+		}
+		check(path.get(0).equals(start) && path.get(path.size() - 1).equals(end), query + " path " + path + " has the wrong ends");
+		for (int i = 0; i < path.size(); i++) {
+			final Locatable loc = path.get(i);
+			check(!grid.blocked(loc.getX(), loc.getY()), query + " path crosses blocked " + loc);
+			if (i == 0)
+				continue;
+			final Locatable prev = path.get(i - 1);
+			final int dx = Math.abs(loc.getX() - prev.getX()), dy = Math.abs(loc.getY() - prev.getY());
+			check(Math.max(dx, dy) == 1 && (eight || dx + dy == 1), query + " path steps from " + prev + " to " + loc);
+		}
+	}
+
+	private static Node open(final BitGrid grid, final Random random) {
+		while (true) {
+			final int x = random.nextInt(grid.getWidth()), y = random.nextInt(grid.getHeight());
+			if (!grid.blocked(x, y))
+				return new Node(x, y);
+		}
+	}
+
+	private static void check(final boolean condition, final String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
\ No newline at end of file
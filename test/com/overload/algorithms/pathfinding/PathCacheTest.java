@@ -0,0 +1,44 @@
+package com.overload.algorithms.pathfinding;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+import com.overload.algorithms.BitGrid;
+import com.overload.algorithms.pathfinding.Pathfinding.Algorithm;
+import com.overload.loc.Locatable;
+import com.overload.loc.Node;
+
+/**
+ * Regression test of {@link PathCache} invalidation, a cached path of waypoints must be dropped
+ * when a cell between two of its waypoints changes, not only when a waypoint itself does.<br>
+ * A failure throws an {@link AssertionError}.
+ * @author Odell
+ */
+public class PathCacheTest {
+
+	public static void main(final String[] args) {
+		for (final Algorithm alg : new Algorithm[] { Algorithm.THETA_STAR, Algorithm.LAZY_THETA_STAR }) {
+			final BitGrid grid = new BitGrid(20, 5);
+			final PathCache cache = new PathCache(new Pathfinding(alg, grid), 1000);
+			cache.setEight(true);
+			cache.setBounds(20, 5);
+			final Node start = new Node(0, 2), end = new Node(19, 2);
+			final List<Locatable> straight = cache.findPath(start, end);
+			check(straight != null && straight.size() == 2, alg + " open grid path " + straight);
+			grid.set(10, 2, true);
+			cache.invalidate(new Rectangle(10, 2, 1, 1));
+			final List<Locatable> around = cache.findPath(start, end);
+			check(cache.getHits() == 0L, alg + " answered from the cache after the line was blocked");
+			check(around != null && around.size() > 2, alg + " path " + around + " still crosses (10, 2)");
+			cache.invalidate(new Rectangle(0, 0, 1, 1)); // outside of the new path
+			check(cache.findPath(start, end) == around && cache.getHits() == 1L, alg + " dropped a path away from the region");
+		}
+		System.out.println("PathCacheTest: passed");
+	}
+
+	private static void check(final boolean condition, final String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.overload.algorithms.pathfinding;
+
+import java.util.List;
+import java.util.Random;
+
+import com.overload.algorithms.pathfinding.Pathfinding3D.Algorithm;
+import com.overload.algorithms.pathfinding.Pathfinding3D.Flags;
+import com.overload.loc.Locatable3D;
+import com.overload.loc.Node3D;
+
+/**
+ * Regression test of {@link VoxelJPSImpl} jumping through an open volume, which must not rescan the volume ahead
+ * of every step, and of its paths matching the costs found by {@link VoxelAStarImpl} in cluttered volumes.<br>
+ * A failure throws an {@link AssertionError}.
+ * @author Odell
+ */
+public class VoxelJPSImplTest {
+
+	private static final int OPEN = 64, SIZE = 24, QUERIES = 500;
+
+	public static void main(final String[] args) {
+		final CountingFlags open = new CountingFlags(OPEN, new boolean[OPEN * OPEN * OPEN]);
+		final Pathfinding3D jps = new Pathfinding3D(Algorithm.JUMP_POINT_SEARCH, open);
+		jps.setBounds(OPEN, OPEN, OPEN);
+		final List<Locatable3D> path = jps.findPath(new Node3D(0, 0, 0), new Node3D(OPEN - 1, OPEN - 1, OPEN - 1));
+		check(path != null && path.size() == OPEN, "open volume path " + path);
+		// a scan of the whole volume ahead of each jump tests the flags millions of times
+		check(open.tests < OPEN * OPEN * OPEN, "open volume took " + open.tests + " flag tests");
+
+		final Random random = new Random(1L);
+		final boolean[] blocked = new boolean[SIZE * SIZE * SIZE];
+		for (int i = 0; i < blocked.length; i++)
+			blocked[i] = random.nextInt(5) == 0;
+		final CountingFlags cluttered = new CountingFlags(SIZE, blocked);
+		final Pathfinding3D astar = new Pathfinding3D(Algorithm.ASTAR, cluttered);
+		jps.setFlags(cluttered);
+		astar.setBounds(SIZE, SIZE, SIZE);
+		jps.setBounds(SIZE, SIZE, SIZE);
+		for (int q = 0; q < QUERIES; q++) {
+			final Node3D start = new Node3D(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE));
+			final Node3D end = new Node3D(random.nextInt(SIZE), random.nextInt(SIZE), random.nextInt(SIZE));
+			if (cluttered.blocked(start, null))
+				continue;
+			final List<Locatable3D> expected = astar.findPath(start, end), actual = jps.findPath(start, end);
+			check((expected == null) == (actual == null), "query " + q + " from " + start + " to " + end + " reached " + actual);
+			if (expected != null)
+				check(Math.abs(cost(expected) - cost(actual)) < 1.0E-4, "query " + q + " cost " + cost(actual) + " instead of " + cost(expected));
+		}
+		System.out.println("VoxelJPSImplTest: open volume in " + open.tests + " flag tests, " + QUERIES + " queries passed");
+	}
+
+	private static double cost(final List<Locatable3D> path) {
+		double cost = 0.0D;
+		for (int i = 1; i < path.size(); i++) {
+			final Locatable3D a = path.get(i - 1), b = path.get(i);
+			cost += Math.sqrt(Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY()) + Math.abs(a.getZ() - b.getZ()));
+		}
+		return cost;
+	}
+
+	private static void check(final boolean condition, final String message) {
+		if (!condition)
+			throw new AssertionError(message);
+	}
+
+	/**
+	 * Flags of a cubic volume which count how often they're tested.
+	 */
+	private static class CountingFlags implements Flags {
+
+		private final int size;
+		private final boolean[] blocked;
+		private int tests = 0;
+
+		CountingFlags(final int size, final boolean[] blocked) {
+			this.size = size;
+			this.blocked = blocked;
+		}
+
+		public boolean blocked(final Locatable3D loc, final Locatable3D parent) {
+			tests++;
+			return blocked[(loc.getZ() * size + loc.getY()) * size + loc.getX()];
+		}
+
+	}
+
+}
\ No newline at end of file